@@ -0,0 +1,199 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import solving.BoardSize;
+import solving.CachingSolver;
+import solving.PuzzleGenerator;
+import solving.SolutionCache;
+import solving.SudokuConfig;
+import solving.TrailSolver;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares a {@link CachingSolver} hit with solving, on generated minimal
+ * 9x9 puzzles all cached beforehand. Every benchmark copies its puzzle
+ * first, as solves work in place.
+ * <p>
+ * {@link #solve()} solves with {@link TrailSolver}, {@link #hit()} finds
+ * the puzzle as given and {@link #variantHit()} a relabelled and maybe
+ * transposed variant not seen before, which takes its canonical form.
+ *
+ * @author Anh Nguyen
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheBenchmark {
+
+    /**
+     * Number of puzzles cycled through
+     */
+    private static final int PUZZLES = 500;
+
+    /**
+     * Puzzles, solved once by the caching solver
+     */
+    private char[][][] puzzles;
+
+    /**
+     * Board solved by every benchmark
+     */
+    private char[][] board;
+
+    /**
+     * Index of the next puzzle
+     */
+    private int next;
+
+    /**
+     * Solves without a cache
+     */
+    private TrailSolver trail;
+
+    /**
+     * Solves with the cache of every puzzle
+     */
+    private CachingSolver caching;
+
+    /**
+     * Picks the variants
+     */
+    private Random random;
+
+    /**
+     * Digit per digit of the variant, index 0 for empty cells
+     */
+    private final int[] labels = new int[10];
+
+    /**
+     * Generates the puzzles and caches them.
+     */
+    @Setup(Level.Trial)
+    public void load() {
+        PuzzleGenerator generator = new PuzzleGenerator(BoardSize.NINE, 1);
+        puzzles = new char[PUZZLES][][];
+        for (int i = 0; i < PUZZLES; i++) {
+            puzzles[i] = generator.generate();
+        }
+        board = new char[9][9];
+        trail = new TrailSolver();
+        // variants cached as given on a hit evict each other, not the forms in use
+        caching = new CachingSolver(new TrailSolver(), new SolutionCache(2 * PUZZLES));
+        for (char[][] puzzle : puzzles) {
+            caching.solve(copy(puzzle));
+        }
+        random = new Random(2);
+        for (int d = 0; d <= 9; d++) {
+            labels[d] = d;
+        }
+    }
+
+    /**
+     * Copies the next puzzle to {@link #board}.
+     *
+     * @return the board
+     */
+    private char[][] nextBoard() {
+        char[][] puzzle = puzzles[next];
+        next = (next + 1) % PUZZLES;
+        for (int r = 0; r < 9; r++) {
+            System.arraycopy(puzzle[r], 0, board[r], 0, 9);
+        }
+        return board;
+    }
+
+    /**
+     * Copies a puzzle.
+     *
+     * @param puzzle 2D char array of the puzzle
+     * @return a new 2D char array
+     */
+    private static char[][] copy(char[][] puzzle) {
+        char[][] copy = new char[puzzle.length][];
+        for (int r = 0; r < puzzle.length; r++) {
+            copy[r] = puzzle[r].clone();
+        }
+        return copy;
+    }
+
+    /**
+     * Solves the next puzzle.
+     *
+     * @return the solved board
+     */
+    @Benchmark
+    public char[][] solve() {
+        char[][] b = nextBoard();
+        trail.solve(b);
+        return b;
+    }
+
+    /**
+     * Finds the next puzzle in the cache.
+     *
+     * @return the solved board
+     */
+    @Benchmark
+    public char[][] hit() {
+        char[][] b = nextBoard();
+        caching.solve(b);
+        return b;
+    }
+
+    /**
+     * Finds a new variant of the next puzzle in the cache, its digits
+     * shuffled and maybe transposed.
+     *
+     * @return the solved board
+     */
+    @Benchmark
+    public char[][] variantHit() {
+        char[][] b = nextBoard();
+        for (int d = 9; d > 1; d--) {
+            int other = 1 + random.nextInt(d);
+            int label = labels[d];
+            labels[d] = labels[other];
+            labels[other] = label;
+        }
+        boolean transpose = random.nextBoolean();
+        for (int r = 0; r < 9; r++) {
+            for (int c = transpose ? r : 0; c < 9; c++) {
+                char a = relabel(b[r][c]);
+                if (transpose) {
+                    b[r][c] = relabel(b[c][r]);
+                    b[c][r] = a;
+                } else {
+                    b[r][c] = a;
+                }
+            }
+        }
+        caching.solve(b);
+        return b;
+    }
+
+    /**
+     * Relabels a cell by {@link #labels}.
+     *
+     * @param cell digit or empty cell
+     * @return the new digit, or the empty cell
+     */
+    private char relabel(char cell) {
+        int digit = BoardSize.digit(cell);
+        return digit == 0 ? SudokuConfig.EMPTY : BoardSize.symbol(labels[digit]);
+    }
+}
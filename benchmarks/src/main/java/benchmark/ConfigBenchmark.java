@@ -0,0 +1,168 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import solving.BoardSize;
+import solving.CandidateMask;
+import solving.Configuration;
+import solving.SudokuConfig;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the building blocks of the backtracking: parsing,
+ * candidates, successors and validation.
+ *
+ * @author Anh Nguyen
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigBenchmark {
+
+    /**
+     * Number of data/sudoku_N.txt
+     */
+    @Param({"1", "2", "3", "4", "5", "6"})
+    private String puzzle;
+
+    /**
+     * Filename of the puzzle
+     */
+    private String filename;
+
+    /**
+     * The puzzle as a 2D char array
+     */
+    private char[][] board;
+
+    /**
+     * The puzzle before its first cell
+     */
+    private SudokuConfig config;
+
+    /**
+     * Occupancy masks of the puzzle
+     */
+    private CandidateMask masks;
+
+    /**
+     * Successors of the first cell, valid or not
+     */
+    private List<Configuration> successors;
+
+    /**
+     * Loads the puzzle.
+     *
+     * @throws IOException if the data folder is missing
+     */
+    @Setup
+    public void setup() throws IOException {
+        filename = Puzzles.file(puzzle);
+        config = new SudokuConfig(filename);
+        board = config.getBoard();
+        masks = new CandidateMask(board);
+
+        // every digit at the first empty cell, the cursor on that cell
+        char[][] probe = config.copyConfig(config).getBoard();
+        successors = new ArrayList<>();
+        int dim = board.length;
+        int cell = 0;
+        while (probe[cell / dim][cell % dim] != SudokuConfig.EMPTY) {
+            cell++;
+        }
+        for (int digit = 1; digit <= dim; digit++) {
+            probe[cell / dim][cell % dim] = BoardSize.symbol(digit);
+            SudokuConfig successor = new SudokuConfig(probe);
+            for (int i = 0; i <= cell; i++) {
+                successor.getSuccessor();
+            }
+            successors.add(successor);
+        }
+    }
+
+    /**
+     * Parses the puzzle file.
+     *
+     * @return the configuration
+     * @throws IOException if reading fails
+     */
+    @Benchmark
+    public SudokuConfig fromFile() throws IOException {
+        return new SudokuConfig(filename);
+    }
+
+    /**
+     * Builds a configuration from a 2D char array.
+     *
+     * @return the configuration
+     */
+    @Benchmark
+    public SudokuConfig fromBoard() {
+        return new SudokuConfig(board);
+    }
+
+    /**
+     * Gets the candidates of every cell, as the backtracking does before each successor.
+     *
+     * @param bh consumes the masks
+     */
+    @Benchmark
+    public void candidates(Blackhole bh) {
+        int dim = board.length;
+        for (int r = 0; r < dim; r++) {
+            for (int c = 0; c < dim; c++) {
+                bh.consume(masks.candidates(r, c));
+            }
+        }
+    }
+
+    /**
+     * Copies the configuration, the baseline of {@link #successor()}.
+     *
+     * @return the copy
+     */
+    @Benchmark
+    public SudokuConfig copy() {
+        return config.copyConfig(config);
+    }
+
+    /**
+     * Gets the successors of the first cell of a copy of the configuration.
+     *
+     * @return the successors
+     */
+    @Benchmark
+    public Collection<Configuration> successor() {
+        return config.copyConfig(config).getSuccessor();
+    }
+
+    /**
+     * Validates successors of the first empty cell, valid or not.
+     *
+     * @param bh consumes the results
+     */
+    @Benchmark
+    public void isValid(Blackhole bh) {
+        for (Configuration successor : successors) {
+            bh.consume(successor.isValid());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package benchmark;
+
+import java.nio.file.Path;
+
+/**
+ * Locates the puzzles of the data folder for the benchmarks.
+ *
+ * @author Anh Nguyen
+ */
+final class Puzzles {
+
+    /**
+     * Data folder, benchmarks run from the benchmarks folder by default
+     */
+    private static final Path DATA = Path.of(System.getProperty("sudoku.data", "../data"));
+
+    /**
+     * Not instantiable.
+     */
+    private Puzzles() {
+    }
+
+    /**
+     * Gets the file of a puzzle.
+     *
+     * @param puzzle number of data/sudoku_N.txt
+     * @return filename
+     */
+    static String file(String puzzle) {
+        return DATA.resolve("sudoku_" + puzzle + ".txt").toString();
+    }
+}
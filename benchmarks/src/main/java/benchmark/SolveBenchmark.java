@@ -0,0 +1,80 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import solving.Engine;
+import visualization.SudokuModel;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end benchmark of {@link SudokuModel#solve()}, without a view,
+ * for the solver engines on every puzzle of the data folder.
+ * {@link Engine#BACKTRACKING} takes close to a minute on puzzle 5 and has
+ * a {@link BacktrackingBenchmark} of its own.
+ *
+ * @author Anh Nguyen
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolveBenchmark {
+
+    /**
+     * Number of data/sudoku_N.txt
+     */
+    @Param({"1", "2", "3", "4", "5", "6"})
+    private String puzzle;
+
+    /**
+     * Engine of the model
+     */
+    @Param({"TRAIL", "DANCING_LINKS", "PARALLEL"})
+    private Engine engine;
+
+    /**
+     * Model without a view
+     */
+    private SudokuModel model;
+
+    /**
+     * Loads the puzzle.
+     */
+    @Setup(Level.Trial)
+    public void load() {
+        model = new SudokuModel(Puzzles.file(puzzle));
+        model.setEngine(engine);
+    }
+
+    /**
+     * Puts the puzzle back before every solve, solves work in place.
+     */
+    @Setup(Level.Invocation)
+    public void reset() {
+        model.reset();
+    }
+
+    /**
+     * Solves the puzzle.
+     *
+     * @return the solved board
+     */
+    @Benchmark
+    public char[][] solve() {
+        model.solve();
+        return model.getBoard();
+    }
+}
@@ -0,0 +1,486 @@
+package batch;
+
+import solving.CachingSolver;
+import solving.Engine;
+import solving.PuzzleParser;
+import solving.SolutionCache;
+import solving.SudokuSolver;
+
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Headless batch solving of puzzle corpora, without any JavaFX class.
+ * <p>
+ * Puzzles are read with a {@link PuzzleParser}, solved on a pool of
+ * workers and written one solution per line in input order, or
+ * {@link #NO_SOLUTION}. Throughput and latency percentiles are printed
+ * at the end.
+ * <p>
+ * With {@code --mapped}, corpora of one puzzle per line are memory mapped
+ * instead and every worker parses and solves its own {@link MappedCorpus.Segment}.
+ * <p>
+ * With {@code --count N}, the number of solutions of every puzzle, up to N,
+ * is written instead of a solution. {@code --count 2} checks uniqueness.
+ * <p>
+ * With {@code --cache N}, the solutions of up to N puzzles are kept in a
+ * {@link SolutionCache} shared by the workers, so repeated puzzles, and
+ * the equivalent variants of sparse puzzles, are only solved once.
+ * <p>
+ * Usage: {@code java -cp SudokuSolver.jar batch.BatchSolver
+ * [--engine TRAIL|DANCING_LINKS|PARALLEL] [--threads N] [--mapped] [--count N] [--cache N] -o output input...}
+ *
+ * @author Anh Nguyen
+ */
+public class BatchSolver {
+
+    /**
+     * Line written for a puzzle without a solution
+     */
+    public static final String NO_SOLUTION = "NO SOLUTION";
+
+    /**
+     * Solutions queued for the writer per worker, the reader blocks beyond
+     */
+    private static final int WINDOW_PER_THREAD = 64;
+
+    /**
+     * Number of workers
+     */
+    private final int threads;
+
+    /**
+     * Number of solutions counted up to, 0 to solve instead
+     */
+    private long countLimit;
+
+    /**
+     * Solver of every worker thread
+     */
+    private final ThreadLocal<SudokuSolver> solvers;
+
+    /**
+     * Solve latencies of every puzzle
+     */
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    /**
+     * Creates a batch solver.
+     *
+     * @param engine  {@link Engine} of the workers, not {@link Engine#BACKTRACKING}
+     * @param threads number of workers
+     */
+    public BatchSolver(Engine engine, int threads) {
+        this(engine, threads, null);
+    }
+
+    /**
+     * Creates a batch solver looking up solutions in a cache first.
+     *
+     * @param engine  {@link Engine} of the workers, not {@link Engine#BACKTRACKING}
+     * @param threads number of workers
+     * @param cache   {@link SolutionCache} shared by the workers, null to solve every puzzle
+     */
+    public BatchSolver(Engine engine, int threads, SolutionCache cache) {
+        if (engine.create() == null) {
+            throw new IllegalArgumentException(engine + " can't run headless");
+        }
+        this.threads = threads;
+        this.solvers = cache == null
+                ? ThreadLocal.withInitial(engine::create)
+                : ThreadLocal.withInitial(() -> new CachingSolver(engine.create(), cache));
+    }
+
+    /**
+     * Counts solutions instead of solving.
+     *
+     * @param countLimit number of solutions to stop counting at, 0 to solve
+     */
+    public void setCountLimit(long countLimit) {
+        this.countLimit = countLimit;
+    }
+
+    /**
+     * Gets the solve latencies recorded so far.
+     *
+     * @return {@link LatencyHistogram}
+     */
+    public LatencyHistogram getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * Solves every puzzle of a reader and writes the solutions in input order.
+     *
+     * @param reader puzzles to solve
+     * @param out    where solutions are written, one per line
+     * @return number of puzzles solved or found unsolvable
+     * @throws IOException if reading or writing fails
+     */
+    public long run(PuzzleParser reader, Writer out) throws IOException {
+        ExecutorService workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "batch-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        BlockingQueue<CompletableFuture<String>> inFlight = new ArrayBlockingQueue<>(threads * WINDOW_PER_THREAD);
+        CompletableFuture<String> end = CompletableFuture.completedFuture(null);
+
+        ExecutorService writing = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "batch-writer");
+            t.setDaemon(true);
+            return t;
+        });
+
+        // writes in input order while the reader keeps submitting
+        CompletableFuture<Long> writer = CompletableFuture.supplyAsync(() -> write(inFlight, end, out), writing);
+
+        try {
+            char[][] board;
+            while ((board = reader.next()) != null) {
+                char[][] puzzle = board;
+                put(inFlight, CompletableFuture.supplyAsync(() -> solve(puzzle), workers), writer);
+            }
+            put(inFlight, end, writer);
+            return writer.get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted", ie);
+        } catch (ExecutionException ee) {
+            // write wraps what stopped it
+            Throwable cause = ee.getCause() instanceof IllegalStateException && ee.getCause().getCause() != null
+                    ? ee.getCause().getCause() : ee.getCause();
+            throw new IOException(cause.getMessage(), cause);
+        } finally {
+            workers.shutdownNow();
+            writing.shutdownNow();
+        }
+    }
+
+    /**
+     * Solves a memory mapped corpus, one segment per task, and appends the
+     * solutions in input order.
+     *
+     * @param input corpus of one puzzle per line
+     * @param out   where solutions are written, one per line
+     * @return number of puzzles solved or found unsolvable
+     * @throws IOException if reading or writing fails
+     */
+    public long runMapped(Path input, FileChannel out) throws IOException {
+        ExecutorService workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "batch-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        List<CompletableFuture<Path>> parts = new ArrayList<>();
+        try {
+            // more segments than workers, so a slow one doesn't hold the others
+            List<MappedCorpus.Segment> segments = MappedCorpus.split(input, threads * 4);
+            for (MappedCorpus.Segment segment : segments) {
+                parts.add(CompletableFuture.supplyAsync(() -> solve(segment), workers));
+            }
+
+            long puzzles = 0;
+            for (int i = 0; i < parts.size(); i++) {
+                CompletableFuture<Path> future = parts.get(i);
+                Path part = future.get();
+                try (FileChannel in = FileChannel.open(part, StandardOpenOption.READ)) {
+                    long size = in.size();
+                    for (long pos = 0; pos < size; ) {
+                        pos += in.transferTo(pos, size - pos, out);
+                    }
+                    puzzles += segments.get(i).getCount();
+                } finally {
+                    Files.delete(part);
+                }
+            }
+            return puzzles;
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted", ie);
+        } catch (ExecutionException ee) {
+            throw new IOException(ee.getCause().getMessage(), ee.getCause());
+        } finally {
+            // on failure, stops the other segments and drops what they wrote
+            workers.shutdownNow();
+            try {
+                workers.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+            for (CompletableFuture<Path> future : parts) {
+                if (future.isDone() && !future.isCompletedExceptionally()) {
+                    Files.deleteIfExists(future.join());
+                }
+            }
+        }
+    }
+
+    /**
+     * Solves every puzzle of a segment into a temporary file.
+     *
+     * @param segment {@link MappedCorpus.Segment} to solve
+     * @return the temporary file, one solution per line
+     */
+    private Path solve(MappedCorpus.Segment segment) {
+        Path part = null;
+        try {
+            part = Files.createTempFile("batch", ".part");
+            try (Writer out = Files.newBufferedWriter(part, StandardCharsets.US_ASCII)) {
+                char[][] board;
+                while ((board = segment.next()) != null) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new IOException("interrupted");
+                    }
+                    if (countLimit > 0) {
+                        out.write(Long.toString(countTimed(board)));
+                    } else if (solveTimed(board)) {
+                        for (char[] row : board) {
+                            out.write(row);
+                        }
+                    } else {
+                        out.write(NO_SOLUTION);
+                    }
+                    out.write('\n');
+                }
+            }
+            return part;
+        } catch (IOException ioe) {
+            if (part != null) {
+                part.toFile().delete();
+            }
+            throw new IllegalStateException(ioe.getMessage(), ioe);
+        }
+    }
+
+    /**
+     * Solves a puzzle on the solver of the current worker.
+     *
+     * @param board the puzzle, solved in place
+     * @return line to write
+     */
+    private String solve(char[][] board) {
+        if (countLimit > 0) {
+            return Long.toString(countTimed(board));
+        }
+        if (!solveTimed(board)) {
+            return NO_SOLUTION;
+        }
+
+        StringBuilder line = new StringBuilder(board.length * board.length);
+        for (char[] row : board) {
+            line.append(row);
+        }
+        return line.toString();
+    }
+
+    /**
+     * Solves a puzzle on the solver of the current worker and records the latency.
+     *
+     * @param board the puzzle, solved in place
+     * @return true if solved
+     */
+    private boolean solveTimed(char[][] board) {
+        long start = System.nanoTime();
+        boolean solved = solvers.get().solve(board);
+        latencies.record(System.nanoTime() - start);
+        return solved;
+    }
+
+    /**
+     * Counts the solutions of a puzzle on the solver of the current worker
+     * and records the latency.
+     *
+     * @param board the puzzle
+     * @return number of solutions, at most {@link #countLimit}
+     */
+    private long countTimed(char[][] board) {
+        long start = System.nanoTime();
+        long found = solvers.get().countSolutions(board, countLimit);
+        latencies.record(System.nanoTime() - start);
+        return found;
+    }
+
+    /**
+     * Queues a solution for the writer, waiting while the window is full
+     * but not for a writer that stopped taking.
+     *
+     * @param inFlight solutions in input order
+     * @param next     solution to queue
+     * @param writer   the writing task
+     * @throws InterruptedException if interrupted while waiting
+     * @throws ExecutionException   if the writer failed, with its error
+     */
+    private static void put(BlockingQueue<CompletableFuture<String>> inFlight, CompletableFuture<String> next,
+                            CompletableFuture<Long> writer) throws InterruptedException, ExecutionException {
+        while (!inFlight.offer(next, 100, TimeUnit.MILLISECONDS)) {
+            if (writer.isDone()) {
+                writer.get();
+            }
+        }
+    }
+
+    /**
+     * Takes the solutions in input order and writes them until the end marker.
+     *
+     * @param inFlight solutions in input order
+     * @param end      end marker
+     * @param out      where solutions are written
+     * @return number of solutions written
+     */
+    private static long write(BlockingQueue<CompletableFuture<String>> inFlight,
+                              CompletableFuture<String> end, Writer out) {
+        long written = 0;
+        try {
+            CompletableFuture<String> next;
+            while ((next = inFlight.take()) != end) {
+                out.write(next.get());
+                out.write('\n');
+                written++;
+            }
+            out.flush();
+            return written;
+        } catch (IOException | ExecutionException e) {
+            throw new IllegalStateException(e);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ie);
+        }
+    }
+
+    /**
+     * Solves input files with a {@link PuzzleParser} each.
+     *
+     * @param inputs corpora to solve
+     * @param output where solutions are written
+     * @return number of puzzles
+     * @throws IOException if reading or writing fails
+     */
+    private long solveRead(List<String> inputs, String output) throws IOException {
+        long puzzles = 0;
+        try (Writer out = new BufferedWriter(new FileWriter(output), 1 << 16)) {
+            for (String input : inputs) {
+                try (PuzzleParser reader = new PuzzleParser(new FileInputStream(input))) {
+                    puzzles += run(reader, out);
+                } catch (IOException ioe) {
+                    throw new IOException(input + ": " + ioe.getMessage(), ioe);
+                }
+            }
+        }
+        return puzzles;
+    }
+
+    /**
+     * Solves memory mapped input files.
+     *
+     * @param inputs corpora of one puzzle per line
+     * @param output where solutions are written
+     * @return number of puzzles
+     * @throws IOException if reading or writing fails
+     */
+    private long solveMapped(List<String> inputs, Path output) throws IOException {
+        long puzzles = 0;
+        try (FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (String input : inputs) {
+                try {
+                    puzzles += runMapped(Path.of(input), out);
+                } catch (IOException ioe) {
+                    throw new IOException(input + ": " + ioe.getMessage(), ioe);
+                }
+            }
+        }
+        return puzzles;
+    }
+
+    /**
+     * Reads the options, solves every input file into the output file
+     * and prints throughput and latency percentiles.
+     *
+     * @param args command line arguments
+     */
+    public static void main(String[] args) {
+        Engine engine = Engine.TRAIL;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean mapped = false;
+        long countLimit = 0;
+        int cacheSize = 0;
+        String output = null;
+        List<String> inputs = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--engine":
+                        engine = Engine.valueOf(args[++i]);
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+                    case "--mapped":
+                        mapped = true;
+                        break;
+                    case "--count":
+                        countLimit = Long.parseLong(args[++i]);
+                        break;
+                    case "--cache":
+                        cacheSize = Integer.parseInt(args[++i]);
+                        break;
+                    case "-o":
+                        output = args[++i];
+                        break;
+                    default:
+                        inputs.add(args[i]);
+                }
+            }
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            output = null;
+        }
+        if (output == null || inputs.isEmpty() || engine.create() == null) {
+            System.err.println("Usage: batch.BatchSolver [--engine TRAIL|DANCING_LINKS|PARALLEL]"
+                    + " [--threads N] [--mapped] [--count N] [--cache N] -o output input...");
+            System.exit(2);
+        }
+
+        SolutionCache cache = cacheSize > 0 ? new SolutionCache(cacheSize) : null;
+        BatchSolver batch = new BatchSolver(engine, threads, cache);
+        batch.setCountLimit(countLimit);
+        long start = System.nanoTime();
+        long puzzles = 0;
+        try {
+            if (mapped) {
+                puzzles = batch.solveMapped(inputs, Path.of(output));
+            } else {
+                puzzles = batch.solveRead(inputs, output);
+            }
+        } catch (IOException ioe) {
+            System.err.println(ioe.getMessage());
+            System.exit(1);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d puzzles in %.3f s with %s on %d threads: %.0f puzzles/s%n",
+                puzzles, seconds, engine, threads, puzzles / seconds);
+        System.out.println("latency " + batch.getLatencies().summary());
+        if (cache != null) {
+            System.out.println("cache " + cache);
+        }
+    }
+}
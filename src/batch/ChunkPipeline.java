@@ -0,0 +1,226 @@
+package batch;
+
+import solving.PuzzleParser;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Maps the puzzles of corpora on a pool of workers, a chunk of puzzles per
+ * task, and hands the results of every chunk over in input order.
+ * <p>
+ * Chunks are mapped while later puzzles are read, and the reader waits on
+ * the oldest chunk once a few per worker are in flight. Results are handed
+ * to the sink on the reading thread, so the sink needs no locking.
+ *
+ * @param <R> result of a chunk
+ * @author Anh Nguyen
+ */
+class ChunkPipeline<R> {
+
+    /**
+     * Bytes buffered on every corpus file read
+     */
+    static final int BUFFER = 1 << 16;
+
+    /**
+     * Chunks in flight per worker before the reader waits
+     */
+    private static final int WINDOW_PER_THREAD = 4;
+
+    /**
+     * Takes the results of the chunks in input order.
+     *
+     * @param <R> result of a chunk
+     */
+    interface Sink<R> {
+
+        /**
+         * Takes the result of the next chunk.
+         *
+         * @param result result of the chunk
+         * @throws IOException if writing it fails
+         */
+        void accept(R result) throws IOException;
+    }
+
+    /**
+     * Maps the chunks
+     */
+    private final ExecutorService workers;
+
+    /**
+     * Number of workers
+     */
+    private final int threads;
+
+    /**
+     * Puzzles per chunk
+     */
+    private final int size;
+
+    /**
+     * Maps a chunk on a worker
+     */
+    private final Function<List<char[][]>, R> map;
+
+    /**
+     * Takes the results on the reading thread
+     */
+    private final Sink<R> sink;
+
+    /**
+     * Chunks submitted and not yet handed to the sink, oldest first
+     */
+    private final ArrayDeque<CompletableFuture<R>> inFlight = new ArrayDeque<>();
+
+    /**
+     * Chunk being read
+     */
+    private List<char[][]> chunk;
+
+    /**
+     * Number of puzzles read
+     */
+    private long count;
+
+    /**
+     * Creates a pipeline, stopped by {@link #finish()}.
+     *
+     * @param name    name of the worker threads
+     * @param threads number of workers
+     * @param size    puzzles per chunk, enough to outweigh handing a task over
+     * @param map     maps a chunk on a worker, the puzzles aren't shared
+     * @param sink    takes the results in input order
+     */
+    ChunkPipeline(String name, int threads, int size, Function<List<char[][]>, R> map, Sink<R> sink) {
+        this.threads = threads;
+        this.size = size;
+        this.map = map;
+        this.sink = sink;
+        this.chunk = new ArrayList<>(size);
+        this.workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Reads every puzzle of a file.
+     *
+     * @param path path of a text or record file
+     * @throws IOException if reading or writing fails
+     */
+    void add(String path) throws IOException {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(path), BUFFER)) {
+            add(in);
+        }
+    }
+
+    /**
+     * Reads every puzzle of an input.
+     *
+     * @param input source of text or records, supporting mark and reset
+     * @throws IOException if reading or writing fails
+     */
+    void add(InputStream input) throws IOException {
+        if (RecordReader.isRecordStream(input)) {
+            RecordReader reader = new RecordReader(input);
+            for (char[][] board = reader.next(); board != null; board = reader.next()) {
+                add(board);
+            }
+        } else {
+            PuzzleParser reader = new PuzzleParser(input);
+            for (char[][] board = reader.next(); board != null; board = reader.next()) {
+                add(board);
+            }
+        }
+    }
+
+    /**
+     * Adds a puzzle to the chunk, submitting it once full.
+     *
+     * @param board 2D char array of the puzzle, not changed afterwards
+     * @throws IOException if writing fails
+     */
+    private void add(char[][] board) throws IOException {
+        chunk.add(board);
+        count++;
+        if (chunk.size() == size) {
+            submit();
+        }
+    }
+
+    /**
+     * Submits the chunk, first handing over the oldest chunks while too many are in flight.
+     *
+     * @throws IOException if writing fails
+     */
+    private void submit() throws IOException {
+        List<char[][]> boards = chunk;
+        chunk = new ArrayList<>(size);
+        while (inFlight.size() >= threads * WINDOW_PER_THREAD) {
+            drain(inFlight.poll());
+        }
+        inFlight.add(CompletableFuture.supplyAsync(() -> map.apply(boards), workers));
+    }
+
+    /**
+     * Waits for a chunk and hands its result to the sink.
+     *
+     * @param future result of the chunk
+     * @throws IOException if mapping or writing fails
+     */
+    private void drain(CompletableFuture<R> future) throws IOException {
+        R result;
+        try {
+            result = future.get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted", ie);
+        } catch (ExecutionException ee) {
+            throw new IOException(ee.getCause().getMessage(), ee.getCause());
+        }
+        sink.accept(result);
+    }
+
+    /**
+     * Hands the chunks left to the sink and stops the workers.
+     *
+     * @return number of puzzles read
+     * @throws IOException if mapping or writing fails
+     */
+    long finish() throws IOException {
+        try {
+            if (!chunk.isEmpty()) {
+                submit();
+            }
+            while (!inFlight.isEmpty()) {
+                drain(inFlight.poll());
+            }
+            return count;
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Gets the number of puzzles read so far.
+     *
+     * @return number of puzzles
+     */
+    long getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,184 @@
+package batch;
+
+import solving.BoardCodec;
+import solving.BoardSize;
+import solving.PuzzleParser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts puzzle corpora between text and binary records.
+ * Inputs are read with a {@link RecordReader} when they start like a
+ * record stream, with a {@link PuzzleParser} otherwise. Text is written
+ * one puzzle per line, records need all puzzles to have one size.
+ * <p>
+ * Usage: {@code java -cp SudokuSolver.jar batch.ConvertPuzzles
+ * [--to text|record|packed] -o output input...}
+ *
+ * @author Anh Nguyen
+ */
+public class ConvertPuzzles {
+
+    /**
+     * Bytes buffered on every file read or written
+     */
+    private static final int BUFFER = 1 << 16;
+
+    /**
+     * Destination of the puzzles, as text or records
+     */
+    private final OutputStream out;
+
+    /**
+     * Codec of the records, null to write text
+     */
+    private final BoardCodec codec;
+
+    /**
+     * Writes the text, null until the first puzzle
+     */
+    private Writer text;
+
+    /**
+     * Writes the records, null until the first puzzle
+     */
+    private RecordWriter records;
+
+    /**
+     * Number of puzzles converted
+     */
+    private long count;
+
+    /**
+     * Creates a converter.
+     *
+     * @param out   destination of the puzzles
+     * @param codec {@link BoardCodec} of the records, null to write text
+     */
+    public ConvertPuzzles(OutputStream out, BoardCodec codec) {
+        this.out = out;
+        this.codec = codec;
+    }
+
+    /**
+     * Converts every puzzle of an input.
+     *
+     * @param input source of text or records, supporting mark and reset
+     * @throws IOException if reading or writing fails
+     */
+    public void convert(InputStream input) throws IOException {
+        if (RecordReader.isRecordStream(input)) {
+            RecordReader reader = new RecordReader(input);
+            char[][] board = new char[reader.getSize().getDim()][reader.getSize().getDim()];
+            while (reader.next(board)) {
+                write(board);
+            }
+        } else {
+            PuzzleParser reader = new PuzzleParser(input);
+            for (char[][] board = reader.next(); board != null; board = reader.next()) {
+                write(board);
+            }
+        }
+    }
+
+    /**
+     * Writes a puzzle in the output format.
+     *
+     * @param board 2D char array of the puzzle
+     * @throws IOException if writing fails
+     */
+    private void write(char[][] board) throws IOException {
+        if (codec == null) {
+            if (text == null) {
+                text = new OutputStreamWriter(out, StandardCharsets.US_ASCII);
+            }
+            for (char[] row : board) {
+                text.write(row);
+            }
+            text.write('\n');
+        } else {
+            if (records == null) {
+                records = new RecordWriter(out, codec, BoardSize.of(board));
+            }
+            records.write(board);
+        }
+        count++;
+    }
+
+    /**
+     * Writes what is buffered and closes the output.
+     *
+     * @return number of puzzles converted
+     * @throws IOException if writing fails
+     */
+    public long finish() throws IOException {
+        if (text != null) {
+            text.close();
+        } else if (records != null) {
+            records.close();
+        } else {
+            out.close();
+        }
+        return count;
+    }
+
+    /**
+     * Converts the inputs and prints the sizes.
+     *
+     * @param args command line arguments
+     */
+    public static void main(String[] args) {
+        BoardCodec codec = BoardCodec.PACKED;
+        String output = null;
+        List<String> inputs = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--to":
+                        String to = args[++i];
+                        codec = to.equals("text") ? null : BoardCodec.valueOf(to.toUpperCase());
+                        break;
+                    case "-o":
+                        output = args[++i];
+                        break;
+                    default:
+                        inputs.add(args[i]);
+                }
+            }
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            output = null;
+        }
+        if (output == null || inputs.isEmpty()) {
+            System.err.println("Usage: batch.ConvertPuzzles [--to text|record|packed] -o output input...");
+            System.exit(2);
+        }
+
+        long read = 0;
+        ConvertPuzzles converter = null;
+        try {
+            converter = new ConvertPuzzles(new BufferedOutputStream(new FileOutputStream(output), BUFFER), codec);
+            for (String input : inputs) {
+                try (InputStream in = new BufferedInputStream(new FileInputStream(input), BUFFER)) {
+                    converter.convert(in);
+                }
+                read += new java.io.File(input).length();
+            }
+            long count = converter.finish();
+            System.out.printf("%d puzzles, %d bytes to %d bytes%n", count, read, new java.io.File(output).length());
+        } catch (IOException ioe) {
+            System.err.println(ioe.getMessage());
+            System.exit(1);
+        }
+    }
+}
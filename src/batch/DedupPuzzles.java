@@ -0,0 +1,182 @@
+package batch;
+
+import solving.BoardSize;
+import solving.CanonicalForm;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Drops the puzzles of a corpus that are equivalent to an earlier one.
+ * <p>
+ * Every puzzle is mapped to its {@link CanonicalForm} on a pool of
+ * workers, a chunk of puzzles per task, and the first puzzle of every
+ * form is written as that form, one per line in input order. Inputs are
+ * text or record streams, as for {@link ConvertPuzzles}. Boards without a
+ * form are only dropped when they repeat as written.
+ * <p>
+ * Usage: {@code java -cp SudokuSolver.jar batch.DedupPuzzles
+ * [--threads N] -o output input...}
+ *
+ * @author Anh Nguyen
+ */
+public class DedupPuzzles {
+
+    /**
+     * Puzzles per chunk, a form takes tens of microseconds
+     */
+    private static final int CHUNK = 256;
+
+    /**
+     * Canonicalizes the puzzles and hands their lines over in input order
+     */
+    private final ChunkPipeline<String[]> pipeline;
+
+    /**
+     * Where the unique puzzles are written
+     */
+    private final Writer out;
+
+    /**
+     * Forms written so far, one line each
+     */
+    private final Set<String> seen = new HashSet<>();
+
+    /**
+     * Creates a dedup pass, closed by {@link #finish()}.
+     *
+     * @param threads number of workers
+     * @param out     where the unique puzzles are written, one per line
+     */
+    public DedupPuzzles(int threads, Writer out) {
+        this.out = out;
+        this.pipeline = new ChunkPipeline<>("dedup-worker", threads, CHUNK, DedupPuzzles::canonicalize, this::write);
+    }
+
+    /**
+     * Reads every puzzle of an input.
+     *
+     * @param input source of text or records, supporting mark and reset
+     * @throws IOException if reading or writing fails
+     */
+    public void add(InputStream input) throws IOException {
+        pipeline.add(input);
+    }
+
+    /**
+     * Writes the forms of a chunk that weren't seen before.
+     *
+     * @param lines forms of the chunk
+     * @throws IOException if writing fails
+     */
+    private void write(String[] lines) throws IOException {
+        for (String line : lines) {
+            if (seen.add(line)) {
+                out.write(line);
+                out.write('\n');
+            }
+        }
+    }
+
+    /**
+     * Maps a chunk of puzzles to their forms.
+     *
+     * @param boards the puzzles
+     * @return a line per puzzle, its form or the puzzle as written without one
+     */
+    private static String[] canonicalize(List<char[][]> boards) {
+        String[] lines = new String[boards.size()];
+        for (int i = 0; i < lines.length; i++) {
+            char[][] board = boards.get(i);
+            if (BoardSize.isWellFormed(board)) {
+                try {
+                    board = CanonicalForm.of(board).toBoard();
+                } catch (IllegalArgumentException iae) {
+                    // too many equivalent branches, kept as written
+                }
+            }
+            StringBuilder line = new StringBuilder(board.length * board.length);
+            for (char[] row : board) {
+                line.append(row);
+            }
+            lines[i] = line.toString();
+        }
+        return lines;
+    }
+
+    /**
+     * Writes the chunks left, closes the output and stops the workers.
+     *
+     * @return number of unique puzzles written
+     * @throws IOException if writing fails
+     */
+    public long finish() throws IOException {
+        pipeline.finish();
+        out.close();
+        return seen.size();
+    }
+
+    /**
+     * Gets the number of puzzles read so far.
+     *
+     * @return number of puzzles
+     */
+    public long getCount() {
+        return pipeline.getCount();
+    }
+
+    /**
+     * Dedups the inputs and prints the counts and throughput.
+     *
+     * @param args command line arguments
+     */
+    public static void main(String[] args) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        String output = null;
+        List<String> inputs = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--threads":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+                    case "-o":
+                        output = args[++i];
+                        break;
+                    default:
+                        inputs.add(args[i]);
+                }
+            }
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            output = null;
+        }
+        if (output == null || inputs.isEmpty() || threads < 1) {
+            System.err.println("Usage: batch.DedupPuzzles [--threads N] -o output input...");
+            System.exit(2);
+        }
+
+        long start = System.nanoTime();
+        try {
+            DedupPuzzles dedup = new DedupPuzzles(threads,
+                    new BufferedWriter(new FileWriter(output, StandardCharsets.US_ASCII), ChunkPipeline.BUFFER));
+            for (String input : inputs) {
+                dedup.pipeline.add(input);
+            }
+            long unique = dedup.finish();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%d puzzles, %d unique in %.2f s, %.0f puzzles/s%n",
+                    dedup.getCount(), unique, seconds, dedup.getCount() / seconds);
+        } catch (IOException ioe) {
+            System.err.println(ioe.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package batch;
+
+import solving.BoardSize;
+import solving.PuzzleGenerator;
+import solving.Symmetry;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Generates puzzles with a unique solution on every core and streams
+ * them to a file, one puzzle per line, in the order they are made.
+ * <p>
+ * Usage: {@code java -cp SudokuSolver.jar batch.GeneratePuzzles
+ * [--count N] [--size 4|9|16|25] [--clues N] [--symmetry NONE|ROTATIONAL|MIRROR|DIAGONAL]
+ * [--threads N] [--seed N] -o output}
+ *
+ * @author Anh Nguyen
+ */
+public class GeneratePuzzles {
+
+    /**
+     * Puzzles waiting for the writer per worker
+     */
+    private static final int WINDOW_PER_THREAD = 64;
+
+    /**
+     * Put in place of a puzzle by a worker that failed
+     */
+    private static final char[][] FAILED = new char[0][];
+
+    /**
+     * Generates the puzzles and prints the throughput.
+     *
+     * @param args command line arguments
+     */
+    public static void main(String[] args) {
+        long count = 1000;
+        int dim = BoardSize.NINE.getDim();
+        int clues = PuzzleGenerator.MINIMAL;
+        Symmetry symmetry = Symmetry.NONE;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Long seed = null;
+        String output = null;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--count":
+                        count = Long.parseLong(args[++i]);
+                        break;
+                    case "--size":
+                        dim = BoardSize.of(Integer.parseInt(args[++i])).getDim();
+                        break;
+                    case "--clues":
+                        clues = Integer.parseInt(args[++i]);
+                        break;
+                    case "--symmetry":
+                        symmetry = Symmetry.valueOf(args[++i]);
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+                    case "--seed":
+                        seed = Long.parseLong(args[++i]);
+                        break;
+                    case "-o":
+                        output = args[++i];
+                        break;
+                    default:
+                        throw new IllegalArgumentException(args[i]);
+                }
+            }
+            if (clues < 0 || clues > dim * dim) {
+                throw new IllegalArgumentException("clues");
+            }
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            output = null;
+        }
+        if (output == null) {
+            System.err.println("Usage: batch.GeneratePuzzles [--count N] [--size 4|9|16|25] [--clues N]"
+                    + " [--symmetry NONE|ROTATIONAL|MIRROR|DIAGONAL] [--threads N] [--seed N] -o output");
+            System.exit(2);
+        }
+
+        BoardSize size = BoardSize.of(dim);
+        AtomicLong remaining = new AtomicLong(count);
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        BlockingQueue<char[][]> made = new ArrayBlockingQueue<>(threads * WINDOW_PER_THREAD);
+        ExecutorService workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "generator");
+            t.setDaemon(true);
+            return t;
+        });
+
+        long start = System.nanoTime();
+        for (int w = 0; w < threads; w++) {
+            PuzzleGenerator generator = seed == null
+                    ? new PuzzleGenerator(size)
+                    : new PuzzleGenerator(size, seed + w);
+            generator.setClues(clues);
+            generator.setSymmetry(symmetry);
+            workers.execute(() -> {
+                try {
+                    while (remaining.getAndDecrement() > 0) {
+                        made.put(generator.generate());
+                    }
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                } catch (RuntimeException re) {
+                    // tells the writer, which would wait forever for the puzzles left
+                    failure.compareAndSet(null, re);
+                    try {
+                        made.put(FAILED);
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+        }
+
+        try (Writer out = new BufferedWriter(new FileWriter(output), 1 << 16)) {
+            for (long i = 0; i < count; i++) {
+                char[][] board = made.take();
+                if (board == FAILED) {
+                    System.err.println("Generating failed: " + failure.get());
+                    System.exit(1);
+                }
+                for (char[] row : board) {
+                    out.write(row);
+                }
+                out.write('\n');
+            }
+        } catch (IOException ioe) {
+            System.err.println(ioe.getMessage());
+            System.exit(1);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            System.exit(1);
+        } finally {
+            workers.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d %s puzzles in %.3f s on %d threads: %.0f puzzles/s%n",
+                count, size, seconds, threads, count / seconds);
+    }
+}
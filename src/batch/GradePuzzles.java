@@ -0,0 +1,245 @@
+package batch;
+
+import solving.Grade;
+import solving.Grader;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Grades puzzle corpora with a {@link Grader} per worker.
+ * <p>
+ * Every puzzle is written on one line followed by its score and hardest
+ * technique, in input order, or from easiest to hardest with
+ * {@code --sort}. Puzzles over the time budget are graded by the steps
+ * they took and marked {@code TIMED_OUT}. Inputs are text or record
+ * streams, as for {@link ConvertPuzzles}.
+ * <p>
+ * Usage: {@code java -cp SudokuSolver.jar batch.GradePuzzles
+ * [--threads N] [--budget MS] [--sort] -o output input...}
+ *
+ * @author Anh Nguyen
+ */
+public class GradePuzzles {
+
+    /**
+     * Puzzles per chunk, fewer than for dedup as a grade can take a budget
+     */
+    private static final int CHUNK = 64;
+
+    /**
+     * Grades the puzzles and hands their lines over in input order
+     */
+    private final ChunkPipeline<Graded[]> pipeline;
+
+    /**
+     * Grader of every worker thread
+     */
+    private final ThreadLocal<Grader> graders;
+
+    /**
+     * Where the grades are written
+     */
+    private final Writer out;
+
+    /**
+     * Graded lines kept for sorting, null to write in input order
+     */
+    private final List<Graded> sorted;
+
+    /**
+     * Number of puzzles over the time budget
+     */
+    private long timedOut;
+
+    /**
+     * A puzzle and its grade, as written.
+     */
+    private static class Graded {
+
+        /**
+         * Score of the grade
+         */
+        private final int score;
+
+        /**
+         * Puzzle, score and hardest technique
+         */
+        private final String line;
+
+        /**
+         * Whether the grade timed out
+         */
+        private final boolean timedOut;
+
+        /**
+         * Grades a puzzle.
+         *
+         * @param board 2D char array of the puzzle
+         * @param grade its {@link Grade}
+         */
+        Graded(char[][] board, Grade grade) {
+            StringBuilder text = new StringBuilder(board.length * board.length + 32);
+            for (char[] row : board) {
+                text.append(row);
+            }
+            text.append(' ').append(grade.getScore()).append(' ');
+            text.append(grade.isTimedOut() ? "TIMED_OUT" : grade.getHardest() == null ? "NONE" : grade.getHardest().name());
+            this.score = grade.getScore();
+            this.line = text.toString();
+            this.timedOut = grade.isTimedOut();
+        }
+    }
+
+    /**
+     * Creates a grading pass, closed by {@link #finish()}.
+     *
+     * @param threads number of workers
+     * @param budget  nanoseconds per puzzle
+     * @param sort    whether to write from easiest to hardest instead of in input order
+     * @param out     where the grades are written, one per line
+     */
+    public GradePuzzles(int threads, long budget, boolean sort, Writer out) {
+        this.out = out;
+        this.sorted = sort ? new ArrayList<>() : null;
+        this.graders = ThreadLocal.withInitial(() -> new Grader(budget));
+        this.pipeline = new ChunkPipeline<>("grade-worker", threads, CHUNK, this::grade, this::write);
+    }
+
+    /**
+     * Reads every puzzle of an input.
+     *
+     * @param input source of text or records, supporting mark and reset
+     * @throws IOException if reading or writing fails
+     */
+    public void add(InputStream input) throws IOException {
+        pipeline.add(input);
+    }
+
+    /**
+     * Grades a chunk of puzzles on the grader of the current worker.
+     *
+     * @param boards the puzzles
+     * @return a graded line per puzzle
+     */
+    private Graded[] grade(List<char[][]> boards) {
+        Grader grader = graders.get();
+        Graded[] graded = new Graded[boards.size()];
+        for (int i = 0; i < graded.length; i++) {
+            graded[i] = new Graded(boards.get(i), grader.grade(boards.get(i)));
+        }
+        return graded;
+    }
+
+    /**
+     * Writes the grades of a chunk, or keeps them for sorting.
+     *
+     * @param graded grades of the chunk
+     * @throws IOException if writing fails
+     */
+    private void write(Graded[] graded) throws IOException {
+        for (Graded line : graded) {
+            if (line.timedOut) {
+                timedOut++;
+            }
+            if (sorted != null) {
+                sorted.add(line);
+            } else {
+                out.write(line.line);
+                out.write('\n');
+            }
+        }
+    }
+
+    /**
+     * Writes the chunks left, sorted if asked, closes the output and stops the workers.
+     *
+     * @return number of puzzles graded
+     * @throws IOException if writing fails
+     */
+    public long finish() throws IOException {
+        long count = pipeline.finish();
+        if (sorted != null) {
+            // stable, equal scores keep the input order
+            sorted.sort(Comparator.comparingInt(line -> line.score));
+            for (Graded line : sorted) {
+                out.write(line.line);
+                out.write('\n');
+            }
+        }
+        out.close();
+        return count;
+    }
+
+    /**
+     * Gets the number of puzzles that ran over the time budget so far.
+     *
+     * @return number of puzzles
+     */
+    public long getTimedOut() {
+        return timedOut;
+    }
+
+    /**
+     * Grades the inputs and prints the count and throughput.
+     *
+     * @param args command line arguments
+     */
+    public static void main(String[] args) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        long budget = Grader.DEFAULT_BUDGET;
+        boolean sort = false;
+        String output = null;
+        List<String> inputs = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--threads":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+                    case "--budget":
+                        budget = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(args[++i]));
+                        break;
+                    case "--sort":
+                        sort = true;
+                        break;
+                    case "-o":
+                        output = args[++i];
+                        break;
+                    default:
+                        inputs.add(args[i]);
+                }
+            }
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            output = null;
+        }
+        if (output == null || inputs.isEmpty() || threads < 1 || budget <= 0) {
+            System.err.println("Usage: batch.GradePuzzles [--threads N] [--budget MS] [--sort] -o output input...");
+            System.exit(2);
+        }
+
+        long start = System.nanoTime();
+        try {
+            GradePuzzles grading = new GradePuzzles(threads, budget, sort,
+                    new BufferedWriter(new FileWriter(output, StandardCharsets.US_ASCII), ChunkPipeline.BUFFER));
+            for (String input : inputs) {
+                grading.pipeline.add(input);
+            }
+            long count = grading.finish();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%d puzzles graded, %d timed out, in %.2f s, %.0f puzzles/s%n",
+                    count, grading.getTimedOut(), seconds, count / seconds);
+        } catch (IOException ioe) {
+            System.err.println(ioe.getMessage());
+            System.exit(1);
+        }
+    }
+}
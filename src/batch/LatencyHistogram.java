@@ -0,0 +1,118 @@
+package batch;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread safe histogram of latencies in constant memory, however many
+ * are recorded.
+ * <p>
+ * Buckets grow in powers of two of nanoseconds, each split in
+ * {@link #SUB_BUCKETS} linear sub-buckets, so percentiles are accurate
+ * to about 6%.
+ *
+ * @author Anh Nguyen
+ */
+public class LatencyHistogram {
+
+    /**
+     * Linear sub-buckets per power of two
+     */
+    private static final int SUB_BUCKETS = 16;
+
+    /**
+     * log2 of {@link #SUB_BUCKETS}
+     */
+    private static final int SUB_BITS = 4;
+
+    /**
+     * Counts of every bucket
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(64 * SUB_BUCKETS);
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos latency in nanoseconds
+     */
+    public void record(long nanos) {
+        counts.incrementAndGet(bucket(Math.max(nanos, 0)));
+    }
+
+    /**
+     * Gets the number of latencies recorded.
+     *
+     * @return count
+     */
+    public long count() {
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Gets a percentile of the recorded latencies.
+     *
+     * @param percentile from 0 to 100
+     * @return upper bound of the bucket holding the percentile, in nanoseconds,
+     * or 0 if nothing was recorded
+     */
+    public long percentile(double percentile) {
+        long total = count();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(counts.length() - 1);
+    }
+
+    /**
+     * Formats the usual percentiles in milliseconds.
+     *
+     * @return p50, p90, p99, p99.9 and max
+     */
+    public String summary() {
+        return String.format("p50 %.3f ms, p90 %.3f ms, p99 %.3f ms, p99.9 %.3f ms, max %.3f ms",
+                percentile(50) / 1e6, percentile(90) / 1e6, percentile(99) / 1e6,
+                percentile(99.9) / 1e6, percentile(100) / 1e6);
+    }
+
+    /**
+     * Gets the bucket of a latency.
+     *
+     * @param nanos non negative latency
+     * @return index of the bucket
+     */
+    private static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) nanos;
+        }
+        // keeps the top SUB_BITS + 1 bits, the leading one picks the power of two
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos) - SUB_BITS;
+        int sub = (int) (nanos >>> exponent) - SUB_BUCKETS;
+        return (exponent + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Gets the largest latency of a bucket.
+     *
+     * @param bucket index of the bucket
+     * @return latency in nanoseconds
+     */
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS - 1;
+        long sub = bucket % SUB_BUCKETS + SUB_BUCKETS;
+        return ((sub + 1) << exponent) - 1;
+    }
+}
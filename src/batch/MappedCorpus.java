@@ -0,0 +1,206 @@
+package batch;
+
+import solving.BoardSize;
+import solving.PuzzleParser;
+import solving.SudokuConfig;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Memory mapped corpus of one puzzle per line, for files too big for a
+ * {@link PuzzleParser}.
+ * <p>
+ * The file is split at line boundaries into {@link Segment}s which can be
+ * parsed on different threads. A segment parses the mapped bytes straight
+ * into a board it reuses, so no String or array is allocated per puzzle.
+ *
+ * @author Anh Nguyen
+ */
+public final class MappedCorpus {
+
+    /**
+     * Largest segment mapped, a single mapping can't exceed 2 GB
+     */
+    private static final long MAX_SEGMENT = 1L << 30;
+
+    /**
+     * Not instantiable.
+     */
+    private MappedCorpus() {
+    }
+
+    /**
+     * Splits a corpus into segments of about the same size, each ending at a line break.
+     *
+     * @param file  corpus of one puzzle per line
+     * @param parts number of segments wanted, more are made for huge files
+     * @return segments in file order
+     * @throws IOException if the file can't be mapped
+     */
+    public static List<Segment> split(Path file, int parts) throws IOException {
+        List<Segment> segments = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long target = Math.max(1, Math.min(MAX_SEGMENT, (size + parts - 1) / Math.max(1, parts)));
+
+            long start = 0;
+            while (start < size) {
+                long end = lineEnd(channel, Math.min(size, start + target), size);
+                if (end - start > Integer.MAX_VALUE) {
+                    throw new IOException("byte " + start + ": line too long");
+                }
+                segments.add(new Segment(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start), start));
+                start = end;
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * Finds the end of the line holding a position.
+     *
+     * @param channel open corpus
+     * @param from    position in the file
+     * @param size    size of the file
+     * @return position right after the next line break, or the size of the file
+     * @throws IOException if reading fails
+     */
+    private static long lineEnd(FileChannel channel, long from, long size) throws IOException {
+        if (from == size) {
+            return size;
+        }
+        long window = 4096;
+        for (long pos = from; pos < size; pos += window) {
+            MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(window, size - pos));
+            for (int i = 0; i < bytes.limit(); i++) {
+                if (bytes.get(i) == '\n') {
+                    return pos + i + 1;
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Consecutive lines of a corpus, parsed by one thread.
+     */
+    public static final class Segment {
+
+        /**
+         * Mapped bytes of the segment
+         */
+        private final MappedByteBuffer bytes;
+
+        /**
+         * Position of the segment in the file, for error messages
+         */
+        private final long offset;
+
+        /**
+         * Position of the next byte to parse
+         */
+        private int pos;
+
+        /**
+         * Number of puzzles parsed so far
+         */
+        private long count;
+
+        /**
+         * Board reused for every puzzle, allocated by the first one
+         */
+        private char[][] board;
+
+        /**
+         * Creates a segment.
+         *
+         * @param bytes  mapped bytes
+         * @param offset position in the file
+         */
+        private Segment(MappedByteBuffer bytes, long offset) {
+            this.bytes = bytes;
+            this.offset = offset;
+        }
+
+        /**
+         * Gets the position of the segment in the file.
+         *
+         * @return byte offset
+         */
+        public long getOffset() {
+            return offset;
+        }
+
+        /**
+         * Gets the number of puzzles parsed so far.
+         *
+         * @return puzzle count
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Parses the next puzzle, skipping blank lines and lines starting with '#'.
+         *
+         * @return 2D char array of the puzzle, overwritten by the next call, or null
+         * at the end of the segment
+         * @throws IOException if a line isn't a puzzle of the size of the first one, a
+         *                     supported size, or holds a byte that is no cell of it
+         */
+        public char[][] next() throws IOException {
+            int limit = bytes.limit();
+            while (pos < limit) {
+                int start = pos;
+                int end = start;
+                while (end < limit && bytes.get(end) != '\n') {
+                    end++;
+                }
+                pos = end + 1;
+                if (end > start && bytes.get(end - 1) == '\r') {
+                    end--;
+                }
+                if (end == start || bytes.get(start) == '#') {
+                    continue;
+                }
+
+                int cells = end - start;
+                if (board == null) {
+                    int dim = (int) Math.round(Math.sqrt(cells));
+                    try {
+                        BoardSize.of(dim);
+                    } catch (IllegalArgumentException iae) {
+                        dim = 0;
+                    }
+                    if (dim * dim != cells) {
+                        throw new IOException("byte " + (offset + start) + ": " + cells + " cells is not a board");
+                    }
+                    board = new char[dim][dim];
+                } else if (cells != board.length * board.length) {
+                    throw new IOException("byte " + (offset + start) + ": expected "
+                            + board.length * board.length + " cells, found " + cells);
+                }
+
+                int dim = board.length;
+                for (int i = 0; i < cells; i++) {
+                    char value = (char) (bytes.get(start + i) & 0xff);
+                    int digit = BoardSize.digit(value);
+                    if (digit < 0 || digit > dim) {
+                        throw new IOException("byte " + (offset + start + i) + ": unexpected '" + value
+                                + "' on a " + dim + "x" + dim + " board");
+                    }
+                    board[i / dim][i % dim] = digit == 0 ? SudokuConfig.EMPTY : BoardSize.symbol(digit);
+                }
+                count++;
+                return board;
+            }
+            return null;
+        }
+    }
+}
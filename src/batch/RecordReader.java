@@ -0,0 +1,187 @@
+package batch;
+
+import solving.BoardCodec;
+import solving.BoardSize;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Reads the boards written by a {@link RecordWriter}, one at a time.
+ * Records are read from the stream in bulk and decoded from a buffer.
+ *
+ * @author Anh Nguyen
+ */
+public class RecordReader implements Closeable {
+
+    /**
+     * Bytes of the buffer, rounded down to whole records
+     */
+    private static final int BUFFER = 1 << 16;
+
+    /**
+     * Source of the records
+     */
+    private final InputStream in;
+
+    /**
+     * Decodes the boards
+     */
+    private final BoardCodec codec;
+
+    /**
+     * Size of every board
+     */
+    private final BoardSize size;
+
+    /**
+     * Bytes of a record
+     */
+    private final int length;
+
+    /**
+     * Records read but not decoded yet
+     */
+    private final byte[] buffer;
+
+    /**
+     * Index of the next record in the buffer
+     */
+    private int position;
+
+    /**
+     * Number of bytes in the buffer
+     */
+    private int limit;
+
+    /**
+     * Number of records read so far, for error messages
+     */
+    private long records;
+
+    /**
+     * Creates a reader and reads the header.
+     *
+     * @param in source of the records
+     * @throws IOException if reading fails or the stream holds no records
+     */
+    public RecordReader(InputStream in) throws IOException {
+        this.in = in;
+        byte[] header = in.readNBytes(RecordWriter.MAGIC.length + 2);
+        if (header.length != RecordWriter.MAGIC.length + 2
+                || !Arrays.equals(header, 0, RecordWriter.MAGIC.length, RecordWriter.MAGIC, 0, RecordWriter.MAGIC.length)) {
+            throw new IOException("Not a record stream");
+        }
+        int format = header[RecordWriter.MAGIC.length];
+        if (format < 0 || format >= BoardCodec.values().length) {
+            throw new IOException("Unknown record codec: " + format);
+        }
+        this.codec = BoardCodec.values()[format];
+        try {
+            this.size = BoardSize.of(header[RecordWriter.MAGIC.length + 1]);
+        } catch (IllegalArgumentException iae) {
+            throw new IOException(iae.getMessage());
+        }
+        this.length = codec.recordLength(size);
+        this.buffer = new byte[Math.max(1, BUFFER / length) * length];
+    }
+
+    /**
+     * Gets the codec of the records.
+     *
+     * @return {@link BoardCodec}
+     */
+    public BoardCodec getCodec() {
+        return codec;
+    }
+
+    /**
+     * Gets the size of the boards.
+     *
+     * @return {@link BoardSize}
+     */
+    public BoardSize getSize() {
+        return size;
+    }
+
+    /**
+     * Reads the next board.
+     *
+     * @return 2D char array of the board, or null at the end of the stream
+     * @throws IOException if reading fails or a record is cut off or invalid
+     */
+    public char[][] next() throws IOException {
+        char[][] board = new char[size.getDim()][size.getDim()];
+        return next(board) ? board : null;
+    }
+
+    /**
+     * Reads the next board into an array, to read without allocating.
+     *
+     * @param board 2D char array of {@link #getSize()} to decode into
+     * @return false at the end of the stream
+     * @throws IOException if reading fails or a record is cut off or invalid
+     */
+    public boolean next(char[][] board) throws IOException {
+        if (position == limit && !fill()) {
+            return false;
+        }
+        try {
+            codec.decode(buffer, position, board);
+        } catch (IllegalArgumentException iae) {
+            throw new IOException("record " + records + ": " + iae.getMessage());
+        }
+        position += length;
+        records++;
+        return true;
+    }
+
+    /**
+     * Gets the number of records read so far.
+     *
+     * @return record count
+     */
+    public long getRecords() {
+        return records;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Refills the buffer with whole records.
+     *
+     * @return false at the end of the stream
+     * @throws IOException if reading fails or the last record is cut off
+     */
+    private boolean fill() throws IOException {
+        limit = in.readNBytes(buffer, 0, buffer.length);
+        position = 0;
+        if (limit % length != 0) {
+            throw new IOException("record " + (records + limit / length) + ": cut off after "
+                    + limit % length + " of " + length + " bytes");
+        }
+        return limit > 0;
+    }
+
+    /**
+     * Checks if a stream starts like a record stream, leaving it unread.
+     *
+     * @param in stream supporting mark and reset
+     * @return true if the stream starts with the magic bytes
+     * @throws IOException if reading fails
+     */
+    public static boolean isRecordStream(InputStream in) throws IOException {
+        in.mark(RecordWriter.MAGIC.length);
+        byte[] start = in.readNBytes(RecordWriter.MAGIC.length);
+        in.reset();
+        return Arrays.equals(start, RecordWriter.MAGIC);
+    }
+}
@@ -0,0 +1,124 @@
+package batch;
+
+import solving.BoardCodec;
+import solving.BoardSize;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes boards of one size as fixed length binary records, see
+ * {@link BoardCodec}, read back with a {@link RecordReader}.
+ * <p>
+ * The stream starts with a header of {@link #MAGIC}, the codec and the
+ * dimension, one byte each, followed by the records. Records are encoded
+ * into a buffer and written in bulk.
+ *
+ * @author Anh Nguyen
+ */
+public class RecordWriter implements Closeable {
+
+    /**
+     * First bytes of a record stream
+     */
+    static final byte[] MAGIC = {'S', 'D', 'K'};
+
+    /**
+     * Bytes of the buffer, rounded down to whole records
+     */
+    private static final int BUFFER = 1 << 16;
+
+    /**
+     * Destination of the records
+     */
+    private final OutputStream out;
+
+    /**
+     * Encodes the boards
+     */
+    private final BoardCodec codec;
+
+    /**
+     * Size of every board written
+     */
+    private final BoardSize size;
+
+    /**
+     * Bytes of a record
+     */
+    private final int length;
+
+    /**
+     * Records waiting to be written
+     */
+    private final byte[] buffer;
+
+    /**
+     * Number of bytes in the buffer
+     */
+    private int buffered;
+
+    /**
+     * Creates a writer and writes the header.
+     *
+     * @param out   destination of the records
+     * @param codec {@link BoardCodec} of the records
+     * @param size  {@link BoardSize} of every board
+     * @throws IOException if writing fails
+     */
+    public RecordWriter(OutputStream out, BoardCodec codec, BoardSize size) throws IOException {
+        this.out = out;
+        this.codec = codec;
+        this.size = size;
+        this.length = codec.recordLength(size);
+        this.buffer = new byte[Math.max(1, BUFFER / length) * length];
+        out.write(MAGIC);
+        out.write(codec.ordinal());
+        out.write(size.getDim());
+    }
+
+    /**
+     * Writes a board.
+     *
+     * @param board 2D char array of the board
+     * @throws IOException if writing fails or the board has another size
+     */
+    public void write(char[][] board) throws IOException {
+        if (board.length != size.getDim()) {
+            throw new IOException("Expected a " + size + " board, found " + board.length + "x" + board.length);
+        }
+        if (buffered == buffer.length) {
+            flush();
+        }
+        try {
+            codec.encode(board, buffer, buffered);
+        } catch (IllegalArgumentException iae) {
+            throw new IOException(iae.getMessage());
+        }
+        buffered += length;
+    }
+
+    /**
+     * Writes the buffered records.
+     *
+     * @throws IOException if writing fails
+     */
+    public void flush() throws IOException {
+        out.write(buffer, 0, buffered);
+        buffered = 0;
+        out.flush();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,541 @@
+package batch;
+
+import solving.BoardCodec;
+import solving.Engine;
+import solving.SolveControl;
+import solving.SudokuSolver;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Local solving server, so services share one pool of solver threads
+ * instead of each starting their own.
+ * <p>
+ * The protocol is lines of US-ASCII over TCP. A client sends a puzzle on
+ * one line, cells in reading order with '0' or '.' for empty cells, and
+ * gets back the solution on one line, or {@link BatchSolver#NO_SOLUTION},
+ * {@link #TIMEOUT}, {@link #BUSY} or {@code ERROR} and a reason. Requests
+ * may be pipelined, answers come in request order. {@code STATS} answers
+ * the metrics and {@code QUIT} closes the connection.
+ * <p>
+ * Every connection is read on a thread of its own, up to a maximum, and
+ * puts its puzzles on a bounded queue. A fixed pool of solver workers
+ * takes the queue in micro-batches, so under load a worker hands off
+ * once per batch rather than once per puzzle. A full queue answers
+ * {@link #BUSY} at once and a solve over the timeout is cancelled, which
+ * bounds the latency of every answer.
+ * <p>
+ * Usage: {@code java -cp SudokuSolver.jar batch.SolveServer [--port N]
+ * [--engine TRAIL|DANCING_LINKS] [--threads N] [--batch N] [--queue N]
+ * [--timeout MS] [--connections N]}
+ *
+ * @author Anh Nguyen
+ */
+public class SolveServer {
+
+    /**
+     * Answer to a puzzle cancelled at the timeout
+     */
+    public static final String TIMEOUT = "TIMEOUT";
+
+    /**
+     * Answer to a puzzle when the queue or the connections are full
+     */
+    public static final String BUSY = "BUSY";
+
+    /**
+     * Port listened on when none is given
+     */
+    public static final int DEFAULT_PORT = 7081;
+
+    /**
+     * Requests read ahead on a connection before answering the ones pending
+     */
+    private static final int PIPELINE = 256;
+
+    /**
+     * A puzzle waiting for or being solved.
+     */
+    private static class Request {
+
+        /**
+         * 2D char array of the puzzle, solved in place
+         */
+        private final char[][] board;
+
+        /**
+         * Cancels the solve at the timeout
+         */
+        private final SolveControl control = new SolveControl();
+
+        /**
+         * Completed with the answer line
+         */
+        private final CompletableFuture<String> answer = new CompletableFuture<>();
+
+        /**
+         * Time the request was queued, from {@link System#nanoTime()}
+         */
+        private final long queued = System.nanoTime();
+
+        /**
+         * Time the solve started, 0 until then
+         */
+        private volatile long started;
+
+        /**
+         * Creates a request.
+         *
+         * @param board 2D char array of the puzzle
+         */
+        Request(char[][] board) {
+            this.board = board;
+        }
+    }
+
+    /**
+     * Puzzles waiting for a worker
+     */
+    private final BlockingQueue<Request> queue;
+
+    /**
+     * Solve of every worker, null while idle, published to the watchdog
+     */
+    private final AtomicReferenceArray<Request> solving;
+
+    /**
+     * Engine of the workers
+     */
+    private final Engine engine;
+
+    /**
+     * Largest number of puzzles a worker takes at once
+     */
+    private final int batch;
+
+    /**
+     * Nanoseconds a solve may take before it is cancelled
+     */
+    private final long timeout;
+
+    /**
+     * Connections that may be open at once
+     */
+    private final Semaphore connections;
+
+    /**
+     * Solver workers and the watchdog
+     */
+    private final ExecutorService workers;
+
+    /**
+     * Threads reading the connections
+     */
+    private final ExecutorService readers;
+
+    /**
+     * Latency from queueing to the answer
+     */
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    /**
+     * Puzzles answered by a worker
+     */
+    private final AtomicLong answered = new AtomicLong();
+
+    /**
+     * Puzzles answered {@link #BUSY}
+     */
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * Puzzles answered {@link #TIMEOUT}
+     */
+    private final AtomicLong timedOut = new AtomicLong();
+
+    /**
+     * Batches taken by the workers
+     */
+    private final AtomicLong batches = new AtomicLong();
+
+    /**
+     * Socket listened on, null until {@link #start(int)}
+     */
+    private volatile ServerSocket server;
+
+    /**
+     * Creates a server, not listening yet.
+     *
+     * @param engine      {@link Engine} of the workers, not {@link Engine#BACKTRACKING}
+     *                    or {@link Engine#PARALLEL}
+     * @param threads     number of solver workers
+     * @param batch       largest number of puzzles a worker takes at once
+     * @param capacity    puzzles that may wait for a worker
+     * @param timeout     nanoseconds a solve may take
+     * @param connections connections that may be open at once
+     */
+    public SolveServer(Engine engine, int threads, int batch, int capacity, long timeout, int connections) {
+        if (engine.create() == null || engine == Engine.PARALLEL) {
+            throw new IllegalArgumentException(engine + " can't serve requests");
+        }
+        this.engine = engine;
+        this.batch = batch;
+        this.timeout = timeout;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.solving = new AtomicReferenceArray<>(threads);
+        this.connections = new Semaphore(connections);
+        this.workers = Executors.newFixedThreadPool(threads + 1, r -> {
+            Thread t = new Thread(r, "server-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        this.readers = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "server-connection");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Starts the workers and listens for connections on the loopback
+     * interface, from a thread of its own.
+     *
+     * @param port port to listen on, 0 for any free port
+     * @return the port listened on
+     * @throws IOException if the port can't be opened
+     */
+    public int start(int port) throws IOException {
+        server = new ServerSocket(port, 128, InetAddress.getLoopbackAddress());
+        for (int i = 0; i < solving.length(); i++) {
+            int worker = i;
+            workers.execute(() -> work(worker));
+        }
+        workers.execute(this::watch);
+        Thread acceptor = new Thread(this::accept, "server-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        return server.getLocalPort();
+    }
+
+    /**
+     * Stops listening and stops the workers, failing the puzzles still queued.
+     */
+    public void stop() {
+        try {
+            if (server != null) {
+                server.close();
+            }
+        } catch (IOException ignored) {
+            // closing anyway
+        }
+        workers.shutdownNow();
+        readers.shutdownNow();
+        for (Request request; (request = queue.poll()) != null; ) {
+            request.answer.complete(BUSY);
+        }
+    }
+
+    /**
+     * Accepts connections until the server is stopped.
+     */
+    private void accept() {
+        while (!server.isClosed()) {
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (IOException ioe) {
+                // closed by stop
+                return;
+            }
+            if (!connections.tryAcquire()) {
+                try (socket) {
+                    socket.getOutputStream().write((BUSY + "\n").getBytes(StandardCharsets.US_ASCII));
+                } catch (IOException ignored) {
+                    // the client learns either way
+                }
+                continue;
+            }
+            readers.execute(() -> {
+                try (socket) {
+                    serve(socket);
+                } catch (IOException ignored) {
+                    // the client went away
+                } finally {
+                    connections.release();
+                }
+            });
+        }
+    }
+
+    /**
+     * Answers the requests of a connection until it closes. Requests are
+     * read as long as the client has sent more, then all pending ones are
+     * answered in order with one flush.
+     *
+     * @param socket connected socket
+     * @throws IOException if reading or writing fails
+     */
+    private void serve(Socket socket) throws IOException {
+        socket.setTcpNoDelay(true);
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+        Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII));
+        ArrayDeque<CompletableFuture<String>> pending = new ArrayDeque<>();
+        String line;
+        while ((line = in.readLine()) != null) {
+            line = line.trim();
+            if (line.equals("QUIT")) {
+                break;
+            }
+            if (line.equals("STATS")) {
+                pending.add(CompletableFuture.completedFuture(stats()));
+            } else if (!line.isEmpty()) {
+                pending.add(submit(line));
+            }
+            if (!in.ready() || pending.size() >= PIPELINE) {
+                while (!pending.isEmpty()) {
+                    out.write(pending.poll().join());
+                    out.write('\n');
+                }
+                out.flush();
+            }
+        }
+        while (!pending.isEmpty()) {
+            out.write(pending.poll().join());
+            out.write('\n');
+        }
+        out.flush();
+    }
+
+    /**
+     * Parses a puzzle and queues it for a worker.
+     *
+     * @param line cells of the puzzle
+     * @return completed with the answer line
+     */
+    private CompletableFuture<String> submit(String line) {
+        char[][] board;
+        try {
+            board = BoardCodec.fromText(line);
+        } catch (IllegalArgumentException iae) {
+            return CompletableFuture.completedFuture("ERROR " + iae.getMessage());
+        }
+        Request request = new Request(board);
+        if (!queue.offer(request)) {
+            rejected.incrementAndGet();
+            return CompletableFuture.completedFuture(BUSY);
+        }
+        return request.answer;
+    }
+
+    /**
+     * Takes puzzles off the queue in batches and solves them, until stopped.
+     *
+     * @param worker index of the worker
+     */
+    private void work(int worker) {
+        SudokuSolver solver = engine.create();
+        List<Request> taken = new ArrayList<>(batch);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                taken.add(queue.take());
+                queue.drainTo(taken, batch - 1);
+                batches.incrementAndGet();
+                for (Request request : taken) {
+                    solving.set(worker, request);
+                    String answer;
+                    try {
+                        answer = solve(solver, request);
+                    } catch (RuntimeException re) {
+                        // the solver may be left half way through, the next puzzle gets a fresh one
+                        solver = engine.create();
+                        answer = "ERROR " + re;
+                    }
+                    request.answer.complete(answer);
+                    solving.set(worker, null);
+                    latencies.record(System.nanoTime() - request.queued);
+                    answered.incrementAndGet();
+                }
+                taken.clear();
+            }
+        } catch (InterruptedException ie) {
+            // stopped
+        } finally {
+            for (Request request : taken) {
+                request.answer.complete(BUSY);
+            }
+        }
+    }
+
+    /**
+     * Solves a puzzle under its own control.
+     *
+     * @param solver solver of the worker
+     * @param request the puzzle
+     * @return answer line
+     */
+    private String solve(SudokuSolver solver, Request request) {
+        char[][] board = request.board;
+        solver.setControl(request.control);
+        request.started = System.nanoTime();
+        boolean solved;
+        try {
+            solved = solver.solve(board);
+        } catch (IllegalArgumentException iae) {
+            return "ERROR " + iae.getMessage();
+        }
+        if (request.control.isCancelled()) {
+            timedOut.incrementAndGet();
+            return TIMEOUT;
+        }
+        if (!solved) {
+            return BatchSolver.NO_SOLUTION;
+        }
+        StringBuilder line = new StringBuilder(board.length * board.length);
+        for (char[] row : board) {
+            line.append(row);
+        }
+        return line.toString();
+    }
+
+    /**
+     * Cancels the solves over the timeout, checking four times per timeout, until stopped.
+     */
+    private void watch() {
+        long period = Math.max(1, TimeUnit.NANOSECONDS.toMillis(timeout) / 4);
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Thread.sleep(period);
+                long now = System.nanoTime();
+                for (int i = 0; i < solving.length(); i++) {
+                    Request request = solving.get(i);
+                    // each solve has its own control, so a late cancel can't hit the next one
+                    if (request != null && request.started != 0 && now - request.started > timeout) {
+                        request.control.cancel();
+                    }
+                }
+            }
+        } catch (InterruptedException ie) {
+            // stopped
+        }
+    }
+
+    /**
+     * Formats the metrics on one line.
+     *
+     * @return queue depth, counts, batch size and latency percentiles
+     */
+    public String stats() {
+        long taken = batches.get();
+        return String.format("queue %d, answered %d, busy %d, timeouts %d, batches %d, avg batch %.1f, %s",
+                queue.size(), answered.get(), rejected.get(), timedOut.get(), taken,
+                taken == 0 ? 0.0 : (double) answered.get() / taken, latencies.summary());
+    }
+
+    /**
+     * Gets the number of puzzles waiting for a worker.
+     *
+     * @return queue depth
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Gets the latencies from queueing to the answer.
+     *
+     * @return {@link LatencyHistogram}
+     */
+    public LatencyHistogram getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * Runs a server until the process is killed, printing the metrics every ten seconds.
+     *
+     * @param args command line arguments
+     */
+    public static void main(String[] args) {
+        int port = DEFAULT_PORT;
+        Engine engine = Engine.TRAIL;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int batch = 32;
+        int capacity = 4096;
+        long timeout = TimeUnit.SECONDS.toNanos(1);
+        int connections = 256;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--port":
+                        port = Integer.parseInt(args[++i]);
+                        break;
+                    case "--engine":
+                        engine = Engine.valueOf(args[++i]);
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+                    case "--batch":
+                        batch = Integer.parseInt(args[++i]);
+                        break;
+                    case "--queue":
+                        capacity = Integer.parseInt(args[++i]);
+                        break;
+                    case "--timeout":
+                        timeout = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(args[++i]));
+                        break;
+                    case "--connections":
+                        connections = Integer.parseInt(args[++i]);
+                        break;
+                    default:
+                        throw new IllegalArgumentException(args[i]);
+                }
+            }
+            if (threads < 1 || batch < 1 || capacity < 1 || timeout <= 0 || connections < 1) {
+                throw new IllegalArgumentException();
+            }
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            System.err.println("Usage: batch.SolveServer [--port N] [--engine TRAIL|DANCING_LINKS] [--threads N]"
+                    + " [--batch N] [--queue N] [--timeout MS] [--connections N]");
+            System.exit(2);
+        }
+
+        SolveServer server = new SolveServer(engine, threads, batch, capacity, timeout, connections);
+        try {
+            System.out.println("Listening on port " + server.start(port));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.stop();
+                System.out.println(server.stats());
+            }));
+            while (true) {
+                Thread.sleep(10_000);
+                System.out.println(server.stats());
+            }
+        } catch (IOException ioe) {
+            System.err.println(ioe.getMessage());
+            System.exit(1);
+        } catch (InterruptedException ie) {
+            server.stop();
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package solving;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Solves puzzles asynchronously on a fixed number of worker threads, each
+ * with a solver of its own, so many puzzles can be solved at once without
+ * a thread per puzzle.
+ * <p>
+ * At most the number of workers plus the queue capacity puzzles are
+ * accepted at a time. Past that {@link #solveAsync(char[][])} blocks the
+ * caller until a worker frees up, and
+ * {@link #solveAsync(char[][], long, TimeUnit)} gives up after a wait.
+ * Cancelling a returned future cancels the {@link SolveControl} of its
+ * solve, stopping the search at its next checkpoint, or skips it if it
+ * hasn't started.
+ *
+ * @author Anh Nguyen
+ */
+public class AsyncSolver implements AutoCloseable {
+
+    /**
+     * Runs the solves
+     */
+    private final ThreadPoolExecutor workers;
+
+    /**
+     * Solver of every worker thread
+     */
+    private final ThreadLocal<SudokuSolver> solvers;
+
+    /**
+     * Puzzles that may still be accepted, running or queued
+     */
+    private final Semaphore slots;
+
+    /**
+     * A puzzle handed to the workers.
+     */
+    private class Task implements Runnable {
+
+        /**
+         * 2D char array of the puzzle, solved in place
+         */
+        private final char[][] board;
+
+        /**
+         * Cancelled with the future
+         */
+        private final SolveControl control = new SolveControl();
+
+        /**
+         * Completed with the {@link Solution}
+         */
+        private final CompletableFuture<Solution> future = new CompletableFuture<>();
+
+        /**
+         * Creates a task of a copy of a puzzle.
+         *
+         * @param board 2D char array of the puzzle
+         */
+        Task(char[][] board) {
+            this.board = new char[board.length][];
+            for (int i = 0; i < board.length; i++) {
+                this.board[i] = board[i].clone();
+            }
+            future.whenComplete((solution, thrown) -> {
+                if (thrown instanceof CancellationException) {
+                    control.cancel();
+                }
+            });
+        }
+
+        /**
+         * Solves the puzzle on the solver of the current worker, unless
+         * cancelled already, and releases its slot.
+         */
+        @Override
+        public void run() {
+            try {
+                if (future.isDone()) {
+                    return;
+                }
+                SudokuSolver solver = solvers.get();
+                solver.setControl(control);
+                long start = System.nanoTime();
+                boolean solved = solver.solve(board);
+                if (!control.isCancelled()) {
+                    future.complete(new Solution(solved ? board : null, System.nanoTime() - start));
+                }
+            } catch (RuntimeException re) {
+                future.completeExceptionally(re);
+            } finally {
+                slots.release();
+            }
+        }
+    }
+
+    /**
+     * Creates an asynchronous solver with one engine.
+     *
+     * @param engine   {@link Engine} of the workers, not {@link Engine#BACKTRACKING}
+     * @param threads  number of workers
+     * @param capacity puzzles that may wait for a worker
+     */
+    public AsyncSolver(Engine engine, int threads, int capacity) {
+        this(engine::create, threads, capacity);
+        if (engine.create() == null) {
+            close();
+            throw new IllegalArgumentException(engine + " has no SudokuSolver");
+        }
+    }
+
+    /**
+     * Creates an asynchronous solver, for example with a {@link CachingSolver}
+     * sharing a {@link SolutionCache} per worker.
+     *
+     * @param solvers  creates the {@link SudokuSolver} of every worker
+     * @param threads  number of workers
+     * @param capacity puzzles that may wait for a worker
+     */
+    public AsyncSolver(Supplier<SudokuSolver> solvers, int threads, int capacity) {
+        this.solvers = ThreadLocal.withInitial(solvers);
+        this.slots = new Semaphore(threads + capacity);
+        this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                // bounded by the slots, a worker finishing a task may not have taken the next yet
+                new ArrayBlockingQueue<>(threads + capacity), r -> {
+            Thread t = new Thread(r, "async-solver");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Solves a puzzle on a worker, waiting for one to free up if too many
+     * puzzles are pending.
+     *
+     * @param board 2D char array of the puzzle, copied
+     * @return completed with the {@link Solution}, exceptionally if the
+     * solver rejects the board or the caller was interrupted while waiting
+     */
+    public CompletableFuture<Solution> solveAsync(char[][] board) {
+        try {
+            slots.acquire();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(ie);
+        }
+        return submit(board);
+    }
+
+    /**
+     * Solves a puzzle on a worker, waiting at most a while for one to free
+     * up if too many puzzles are pending.
+     *
+     * @param board   2D char array of the puzzle, copied
+     * @param timeout longest wait to be accepted
+     * @param unit    unit of the timeout
+     * @return completed with the {@link Solution}, exceptionally with a
+     * {@link RejectedExecutionException} if not accepted in time
+     */
+    public CompletableFuture<Solution> solveAsync(char[][] board, long timeout, TimeUnit unit) {
+        try {
+            if (!slots.tryAcquire(timeout, unit)) {
+                return CompletableFuture.failedFuture(new RejectedExecutionException("Queue full"));
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(ie);
+        }
+        return submit(board);
+    }
+
+    /**
+     * Hands a puzzle to the workers, holding a slot released once it is done.
+     *
+     * @param board 2D char array of the puzzle, copied
+     * @return completed with the {@link Solution}
+     */
+    private CompletableFuture<Solution> submit(char[][] board) {
+        Task task = new Task(board);
+        try {
+            workers.execute(task);
+        } catch (RejectedExecutionException ree) {
+            // closed
+            slots.release();
+            task.future.completeExceptionally(ree);
+        }
+        return task.future;
+    }
+
+    /**
+     * Gets the number of puzzles waiting for a worker.
+     *
+     * @return queue depth
+     */
+    public int getQueueDepth() {
+        return workers.getQueue().size();
+    }
+
+    /**
+     * Stops the workers and cancels the puzzles not started. Running
+     * solves finish, cancel their futures to stop them sooner.
+     */
+    @Override
+    public void close() {
+        for (Runnable task : workers.shutdownNow()) {
+            ((Task) task).future.cancel(false);
+        }
+    }
+}
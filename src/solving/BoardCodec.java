@@ -0,0 +1,146 @@
+package solving;
+
+/**
+ * Binary forms of a board, a fixed number of bytes per board.
+ * <p>
+ * Cells are stored row by row as their digit, 0 for an empty cell,
+ * each in {@link #bitsPerCell(BoardSize)} bits, most significant first.
+ * A 9x9 board takes 81 bytes as a {@link #RECORD} and 41 bytes
+ * {@link #PACKED}, instead of 162 bytes of chars in memory or about
+ * 162 bytes of text.
+ *
+ * @author Anh Nguyen
+ */
+public enum BoardCodec {
+    /**
+     * One byte per cell
+     */
+    RECORD {
+        @Override
+        public int bitsPerCell(BoardSize size) {
+            return Byte.SIZE;
+        }
+    },
+
+    /**
+     * As few bits per cell as the digits need, 4 for a 9x9 board
+     */
+    PACKED {
+        @Override
+        public int bitsPerCell(BoardSize size) {
+            return Integer.SIZE - Integer.numberOfLeadingZeros(size.getDim());
+        }
+    };
+
+    /**
+     * Gets the bits of a cell.
+     *
+     * @param size {@link BoardSize} of the board
+     * @return number of bits per cell
+     */
+    public abstract int bitsPerCell(BoardSize size);
+
+    /**
+     * Gets the bytes of a board.
+     *
+     * @param size {@link BoardSize} of the board
+     * @return number of bytes per board, the last one padded with zero bits
+     */
+    public int recordLength(BoardSize size) {
+        return (size.getCells() * bitsPerCell(size) + Byte.SIZE - 1) / Byte.SIZE;
+    }
+
+    /**
+     * Encodes a board.
+     *
+     * @param board  2D char array of the board
+     * @param out    bytes to encode into
+     * @param offset index of the first byte, {@link #recordLength(BoardSize)} bytes are written
+     * @throws IllegalArgumentException if a cell is no digit of the board
+     */
+    public void encode(char[][] board, byte[] out, int offset) {
+        BoardSize size = BoardSize.of(board);
+        int bits = bitsPerCell(size);
+        long buffer = 0;
+        int buffered = 0;
+        for (char[] row : board) {
+            for (char value : row) {
+                int digit = BoardSize.digit(value);
+                if (digit < 0 || digit > size.getDim()) {
+                    throw new IllegalArgumentException("Not a digit of a " + size + " board: " + value);
+                }
+                buffer = buffer << bits | digit;
+                buffered += bits;
+                while (buffered >= Byte.SIZE) {
+                    buffered -= Byte.SIZE;
+                    out[offset++] = (byte) (buffer >>> buffered);
+                }
+            }
+        }
+        if (buffered > 0) {
+            out[offset] = (byte) (buffer << (Byte.SIZE - buffered));
+        }
+    }
+
+    /**
+     * Decodes a board.
+     *
+     * @param in     bytes to decode
+     * @param offset index of the first byte
+     * @param board  2D char array to decode into, of the size that was encoded
+     * @throws IllegalArgumentException if a cell holds no digit of the board
+     */
+    public void decode(byte[] in, int offset, char[][] board) {
+        BoardSize size = BoardSize.of(board.length);
+        int bits = bitsPerCell(size);
+        int mask = (1 << bits) - 1;
+        long buffer = 0;
+        int buffered = 0;
+        for (char[] row : board) {
+            for (int c = 0; c < row.length; c++) {
+                while (buffered < bits) {
+                    buffer = buffer << Byte.SIZE | (in[offset++] & 0xFF);
+                    buffered += Byte.SIZE;
+                }
+                buffered -= bits;
+                int digit = (int) (buffer >>> buffered) & mask;
+                if (digit > size.getDim()) {
+                    throw new IllegalArgumentException("Not a digit of a " + size + " board: " + digit);
+                }
+                row[c] = digit == 0 ? SudokuConfig.EMPTY : BoardSize.symbol(digit);
+            }
+        }
+    }
+
+    /**
+     * Converts a board to text in the format of data/*.txt, one row per
+     * line with the cells separated by spaces.
+     *
+     * @param board 2D char array of the board
+     * @return the text, ending with a line break
+     */
+    public static String toText(char[][] board) {
+        StringBuilder text = new StringBuilder(board.length * board.length * 2);
+        for (char[] row : board) {
+            for (int c = 0; c < row.length; c++) {
+                text.append(row[c]).append(c == row.length - 1 ? '\n' : ' ');
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Converts text to a board, in any format of a {@link PuzzleParser}.
+     *
+     * @param text cells of the board
+     * @return 2D char array of the board
+     * @throws IllegalArgumentException if the text holds no puzzle or a malformed one
+     */
+    public static char[][] fromText(CharSequence text) {
+        try {
+            return PuzzleParser.parse(text);
+        } catch (PuzzleFormatException pfe) {
+            throw new IllegalArgumentException(pfe.getMessage(), pfe);
+        }
+    }
+}
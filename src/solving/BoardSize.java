@@ -0,0 +1,271 @@
+package solving;
+
+import java.util.Arrays;
+
+/**
+ * Dimension of a Sudoku board: 4x4, 9x9, 16x16 or 25x25, with squares
+ * of 2x2, 3x3, 4x4 or 5x5 cells.
+ * <p>
+ * Cells hold one char each, {@link SudokuConfig#EMPTY} (or '.') when empty
+ * and one of "123456789ABCDEFGHIJKLMNOP" otherwise, so that up to 25
+ * digits fit in a char and their candidates in an int mask.
+ *
+ * @author Anh Nguyen
+ */
+public final class BoardSize {
+
+    /**
+     * The cell values, digit d is the (d - 1)th char
+     */
+    private static final String SYMBOLS = "123456789ABCDEFGHIJKLMNOP";
+
+    /**
+     * Largest supported square size
+     */
+    private static final int MAX_BOX = 5;
+
+    /**
+     * Digit of every ASCII char, 0 for empty and -1 for anything else
+     */
+    private static final int[] DIGITS = new int[128];
+
+    /**
+     * Every supported size, indexed by square size
+     */
+    private static final BoardSize[] SIZES = new BoardSize[MAX_BOX + 1];
+
+    static {
+        Arrays.fill(DIGITS, -1);
+        DIGITS[SudokuConfig.EMPTY] = 0;
+        DIGITS['.'] = 0;
+        for (int i = 0; i < SYMBOLS.length(); i++) {
+            DIGITS[SYMBOLS.charAt(i)] = i + 1;
+            DIGITS[Character.toLowerCase(SYMBOLS.charAt(i))] = i + 1;
+        }
+        for (int box = 2; box <= MAX_BOX; box++) {
+            SIZES[box] = new BoardSize(box);
+        }
+    }
+
+    /**
+     * The classic 9x9 board
+     */
+    public static final BoardSize NINE = of(9);
+
+    /**
+     * Number of rows (and columns) of a square
+     */
+    private final int box;
+
+    /**
+     * Number of rows (and columns) of the board
+     */
+    private final int dim;
+
+    /**
+     * Number of cells of the board
+     */
+    private final int cells;
+
+    /**
+     * Mask with every digit from 1 to {@link #dim} set
+     */
+    private final int all;
+
+    /**
+     * The cells of every row, column and square, as row * dim + col
+     */
+    private final int[][] units;
+
+    /**
+     * Creates the size of a board with a given square size.
+     *
+     * @param box number of rows of a square
+     */
+    private BoardSize(int box) {
+        this.box = box;
+        this.dim = box * box;
+        this.cells = dim * dim;
+        this.all = (1 << dim) - 1;
+
+        units = new int[3 * dim][dim];
+        for (int i = 0; i < dim; i++) {
+            for (int j = 0; j < dim; j++) {
+                units[i][j] = i * dim + j;
+                units[dim + i][j] = j * dim + i;
+                int row = i / box * box + j / box;
+                int col = i % box * box + j % box;
+                units[2 * dim + i][j] = row * dim + col;
+            }
+        }
+    }
+
+    /**
+     * Gets the size of a board with a given dimension.
+     *
+     * @param dim number of rows of the board
+     * @return the {@link BoardSize}
+     * @throws IllegalArgumentException if the dimension isn't 4, 9, 16 or 25
+     */
+    public static BoardSize of(int dim) {
+        int box = (int) Math.round(Math.sqrt(dim));
+        if (box < 2 || box > MAX_BOX || box * box != dim) {
+            throw new IllegalArgumentException("Unsupported board dimension: " + dim);
+        }
+        return SIZES[box];
+    }
+
+    /**
+     * Gets the size of a given 2D char array.
+     *
+     * @param board 2D char array of the board
+     * @return the {@link BoardSize}
+     * @throws IllegalArgumentException if the board has an unsupported dimension
+     */
+    public static BoardSize of(char[][] board) {
+        return of(board.length);
+    }
+
+    /**
+     * Checks if a 2D char array is a board of a supported size holding
+     * only {@link SudokuConfig#EMPTY} and digits of that size.
+     *
+     * @param board 2D char array of the board
+     * @return true if the board can be solved on
+     */
+    public static boolean isWellFormed(char[][] board) {
+        BoardSize size;
+        try {
+            size = of(board);
+        } catch (IllegalArgumentException iae) {
+            return false;
+        }
+        for (char[] row : board) {
+            if (row.length != size.dim) {
+                return false;
+            }
+            for (char cell : row) {
+                if (cell != SudokuConfig.EMPTY && !size.isDigit(cell)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the digit of a cell value.
+     *
+     * @param value char of the cell
+     * @return 1 to 25 for a digit, 0 for an empty cell, -1 for anything else
+     */
+    public static int digit(char value) {
+        return value < DIGITS.length ? DIGITS[value] : -1;
+    }
+
+    /**
+     * Gets the cell value of a digit.
+     *
+     * @param digit 1 to 25
+     * @return the char of the cell
+     */
+    public static char symbol(int digit) {
+        return SYMBOLS.charAt(digit - 1);
+    }
+
+    /**
+     * Gets the mask bit of a cell value.
+     *
+     * @param value char of a digit
+     * @return single bit mask
+     */
+    public static int bit(char value) {
+        return 1 << (digit(value) - 1);
+    }
+
+    /**
+     * Gets the cell value of a mask bit.
+     *
+     * @param bit single bit mask
+     * @return char of the digit
+     */
+    public static char value(int bit) {
+        return SYMBOLS.charAt(Integer.numberOfTrailingZeros(bit));
+    }
+
+    /**
+     * Checks if a char is a digit of a board of this size.
+     *
+     * @param value char of the cell
+     * @return true if it is a digit from 1 to {@link #getDim()}
+     */
+    public boolean isDigit(char value) {
+        int digit = digit(value);
+        return digit >= 1 && digit <= dim;
+    }
+
+    /**
+     * Gets the square index of a cell, counting in reading order.
+     *
+     * @param row row of the cell
+     * @param col column of the cell
+     * @return index of the square
+     */
+    public int square(int row, int col) {
+        return row / box * box + col / box;
+    }
+
+    /**
+     * Gets the number of rows (and columns) of a square.
+     *
+     * @return square size
+     */
+    public int getBox() {
+        return box;
+    }
+
+    /**
+     * Gets the number of rows (and columns) of the board.
+     *
+     * @return dimension
+     */
+    public int getDim() {
+        return dim;
+    }
+
+    /**
+     * Gets the number of cells of the board.
+     *
+     * @return cell count
+     */
+    public int getCells() {
+        return cells;
+    }
+
+    /**
+     * Gets the mask with every digit set.
+     *
+     * @return full mask
+     */
+    public int getAll() {
+        return all;
+    }
+
+    /**
+     * Gets the cells of every row, then every column, then every square.
+     * Not to be modified.
+     *
+     * @return 3 * dim units of dim cells each, as row * dim + col
+     */
+    public int[][] getUnits() {
+        return units;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return dim + "x" + dim;
+    }
+}
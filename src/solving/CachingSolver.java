@@ -0,0 +1,90 @@
+package solving;
+
+/**
+ * Solver looking up a {@link SolutionCache} before solving with another
+ * solver, and caching what that one finds. Boards are looked up as given,
+ * then by their {@link CanonicalForm} if the cache keeps them by form.
+ * Counts always go to the other solver.
+ * <p>
+ * Not thread safe like any solver, the cache may be shared.
+ *
+ * @author Anh Nguyen
+ */
+public class CachingSolver implements SudokuSolver {
+
+    /**
+     * Solves the puzzles not cached
+     */
+    private final SudokuSolver solver;
+
+    /**
+     * Solutions found so far
+     */
+    private final SolutionCache cache;
+
+    /**
+     * Lookup of the board being solved, reused
+     */
+    private final SolutionCache.Lookup lookup = new SolutionCache.Lookup();
+
+    /**
+     * Control of the solves, to tell a cancelled solve from one without solution
+     */
+    private SolveControl control;
+
+    /**
+     * Creates a caching solver.
+     *
+     * @param solver {@link SudokuSolver} of the puzzles not cached
+     * @param cache  {@link SolutionCache}, may be shared
+     */
+    public CachingSolver(SudokuSolver solver, SolutionCache cache) {
+        this.solver = solver;
+        this.cache = cache;
+    }
+
+    /**
+     * {@inheritDoc}
+     * A puzzle seen as given is filled in without finding its form, a
+     * cached variant is mapped back to the board without solving.
+     */
+    @Override
+    public boolean solve(char[][] board) {
+        cache.lookup(board, lookup);
+        if (lookup.isHit()) {
+            return lookup.isSolved();
+        }
+        boolean solved = solver.solve(board);
+        if (solved) {
+            cache.store(lookup, board);
+        } else if (control == null || !control.isCancelled()) {
+            cache.store(lookup, null);
+        }
+        return solved;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long countSolutions(char[][] board, long limit) {
+        return solver.countSolutions(board, limit);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setControl(SolveControl control) {
+        this.control = control;
+        solver.setControl(control);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setStats(SolverStats stats) {
+        solver.setStats(stats);
+    }
+}
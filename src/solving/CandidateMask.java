@@ -0,0 +1,203 @@
+package solving;
+
+/**
+ * Occupancy of every row, column and square of a Sudoku board kept
+ * as primitive int bitmasks. Bit {@code d - 1} of a mask is set when
+ * digit {@code d} is already placed in that unit.
+ * <p>
+ * Used by {@link SudokuConfig} so that the candidates of a cell come
+ * back as a single int instead of a collection of boxed characters.
+ * Boards up to 25x25 fit, see {@link BoardSize}.
+ *
+ * @author Anh Nguyen
+ */
+public class CandidateMask {
+
+    /**
+     * Size of the board
+     */
+    private final BoardSize size;
+
+    /**
+     * Digits placed in each row
+     */
+    private final int[] rows;
+
+    /**
+     * Digits placed in each column
+     */
+    private final int[] cols;
+
+    /**
+     * Digits placed in each square
+     */
+    private final int[] squares;
+
+    /**
+     * Digits placed more than once in each row
+     */
+    private final int[] rowClash;
+
+    /**
+     * Digits placed more than once in each column
+     */
+    private final int[] colClash;
+
+    /**
+     * Digits placed more than once in each square
+     */
+    private final int[] squareClash;
+
+    /**
+     * Creates the masks of an empty board of a given size.
+     *
+     * @param size {@link BoardSize}
+     */
+    public CandidateMask(BoardSize size) {
+        this.size = size;
+        int dim = size.getDim();
+        rows = new int[dim];
+        cols = new int[dim];
+        squares = new int[dim];
+        rowClash = new int[dim];
+        colClash = new int[dim];
+        squareClash = new int[dim];
+    }
+
+    /**
+     * Creates the masks of a given 2D char array.
+     * Cells that do not hold a digit of the board are left out.
+     *
+     * @param board 2D char array of the Sudoku board
+     */
+    public CandidateMask(char[][] board) {
+        this(BoardSize.of(board));
+        load(board);
+    }
+
+    /**
+     * Copies the masks of another board.
+     *
+     * @param other the masks to be copied
+     */
+    public CandidateMask(CandidateMask other) {
+        this(other.size);
+        int dim = size.getDim();
+        System.arraycopy(other.rows, 0, rows, 0, dim);
+        System.arraycopy(other.cols, 0, cols, 0, dim);
+        System.arraycopy(other.squares, 0, squares, 0, dim);
+        System.arraycopy(other.rowClash, 0, rowClash, 0, dim);
+        System.arraycopy(other.colClash, 0, colClash, 0, dim);
+        System.arraycopy(other.squareClash, 0, squareClash, 0, dim);
+    }
+
+    /**
+     * Replaces the masks with the ones of a given 2D char array of the same size.
+     * Cells that do not hold a digit of the board are left out.
+     *
+     * @param board 2D char array of the Sudoku board
+     */
+    public void load(char[][] board) {
+        int dim = size.getDim();
+        for (int i = 0; i < dim; i++) {
+            rows[i] = cols[i] = squares[i] = 0;
+            rowClash[i] = colClash[i] = squareClash[i] = 0;
+        }
+        for (int r = 0; r < dim; r++) {
+            for (int c = 0; c < dim; c++) {
+                if (size.isDigit(board[r][c])) {
+                    place(r, c, BoardSize.bit(board[r][c]));
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the size of the board.
+     *
+     * @return {@link BoardSize}
+     */
+    public BoardSize getSize() {
+        return size;
+    }
+
+    /**
+     * Marks a digit as placed in the row, column and square of a cell.
+     *
+     * @param row row of the cell
+     * @param col column of the cell
+     * @param bit single bit mask of the digit
+     */
+    public void place(int row, int col, int bit) {
+        int square = size.square(row, col);
+        rowClash[row] |= rows[row] & bit;
+        colClash[col] |= cols[col] & bit;
+        squareClash[square] |= squares[square] & bit;
+        rows[row] |= bit;
+        cols[col] |= bit;
+        squares[square] |= bit;
+    }
+
+    /**
+     * Removes a digit placed by {@link #place(int, int, int)}.
+     * Only meant for digits that did not clash when placed.
+     *
+     * @param row row of the cell
+     * @param col column of the cell
+     * @param bit single bit mask of the digit
+     */
+    public void unplace(int row, int col, int bit) {
+        rows[row] &= ~bit;
+        cols[col] &= ~bit;
+        squares[size.square(row, col)] &= ~bit;
+    }
+
+    /**
+     * Gets the digits that could still be placed in a cell.
+     *
+     * @param row row of the cell
+     * @param col column of the cell
+     * @return mask of the candidates
+     */
+    public int candidates(int row, int col) {
+        return ~(rows[row] | cols[col] | squares[size.square(row, col)]) & size.getAll();
+    }
+
+    /**
+     * Checks if any digit occurs more than once in a unit.
+     *
+     * @return true if the board breaks the rules
+     */
+    public boolean hasClash() {
+        for (int i = 0; i < size.getDim(); i++) {
+            if ((rowClash[i] | colClash[i] | squareClash[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a digit occurs more than once in the row or column of a cell.
+     *
+     * @param row row of the cell
+     * @param col column of the cell
+     * @param bit single bit mask of the digit
+     * @return true if the digit is repeated
+     */
+    public boolean clashesStraight(int row, int col, int bit) {
+        return ((rowClash[row] | colClash[col]) & bit) != 0;
+    }
+
+    /**
+     * Checks if a digit occurs more than once in the square of a cell.
+     *
+     * @param row row of the cell
+     * @param col column of the cell
+     * @param bit single bit mask of the digit
+     * @return true if the digit is repeated
+     */
+    public boolean clashesSquare(int row, int col, int bit) {
+        return (squareClash[size.square(row, col)] & bit) != 0;
+    }
+}
@@ -0,0 +1,933 @@
+package solving;
+
+import java.util.Arrays;
+
+/**
+ * Canonical form of a board under the symmetries that keep a board
+ * valid: relabelling the digits, permuting rows within bands and columns
+ * within stacks, permuting bands and stacks, and transposing.
+ * <p>
+ * The canonical form is the smallest board, read row by row with empty
+ * cells as 0, of all the boards the symmetries make, with the digits
+ * relabelled 1, 2, 3... in the order they are first read. Equivalent
+ * boards have the same form, and the transform that made it maps any
+ * board, like a solution, between both.
+ * <p>
+ * Rather than trying every transform, rows are picked one at a time while
+ * the columns are only ordered as far as the rows picked so far tell them
+ * apart, so the search only branches where the form really depends on
+ * the choice. Only the rows reading smallest at a depth are picked.
+ * <p>
+ * Sparse boards like puzzles take few branches. New digits tied on a row
+ * are still branched on every order though, (3!)^4 on a full first row
+ * of a 9x9 board and (4!)^5 on a 16x16 board, so a search reading more
+ * than {@link #MAX_CELLS} cells gives up. Full 9x9 grids take a few
+ * milliseconds, full bigger grids have no form.
+ * <p>
+ * This is short of a bulk canonicalizer: a minimal 9x9 puzzle takes
+ * tens of microseconds, tens of thousands of puzzles per second per
+ * core, not hundreds of thousands. Breaking ties of new digits lazily,
+ * as later rows tell them apart, would be needed for that.
+ *
+ * @author Anh Nguyen
+ */
+public class CanonicalForm {
+
+    /**
+     * Rows of the square of the largest {@link BoardSize}
+     */
+    private static final int MAX_BOX = 5;
+
+    /**
+     * Cells a search may read before giving up, tens of milliseconds
+     */
+    private static final long MAX_CELLS = 1 << 22;
+
+    /**
+     * Permutations of 0 to n - 1 per n, up to the rows of a square
+     */
+    private static final int[][][] PERMUTATIONS = new int[MAX_BOX + 1][][];
+
+    static {
+        for (int n = 0; n < PERMUTATIONS.length; n++) {
+            PERMUTATIONS[n] = permutations(n);
+        }
+    }
+
+    /**
+     * The form, a char '0' plus the label per cell, row by row
+     */
+    private final String key;
+
+    /**
+     * Rows and columns of the board
+     */
+    private final int dim;
+
+    /**
+     * Whether the board is transposed before the rows and columns are permuted
+     */
+    private final boolean transposed;
+
+    /**
+     * Row of the (transposed) board per row of the form
+     */
+    private final int[] rows;
+
+    /**
+     * Column of the (transposed) board per column of the form
+     */
+    private final int[] cols;
+
+    /**
+     * Label in the form per digit of the board, index 0 unused
+     */
+    private final int[] labels;
+
+    /**
+     * Digit of the board per label in the form, index 0 unused
+     */
+    private final int[] digits;
+
+    /**
+     * Creates a form found by a {@link Search}.
+     *
+     * @param search finished search
+     */
+    private CanonicalForm(Search search) {
+        dim = search.dim;
+        char[] form = new char[dim * dim];
+        for (int i = 0; i < form.length; i++) {
+            form[i] = (char) ('0' + search.best[i]);
+        }
+        this.key = new String(form);
+        this.transposed = search.bestTransposed;
+        this.rows = search.bestRows.clone();
+        this.cols = search.bestCols.clone();
+        this.labels = search.bestLabels.clone();
+
+        // digits the board doesn't use get the labels left, in order
+        int next = 0;
+        for (int label : labels) {
+            next = Math.max(next, label);
+        }
+        for (int d = 1; d <= dim; d++) {
+            if (labels[d] == 0) {
+                labels[d] = ++next;
+            }
+        }
+        this.digits = new int[dim + 1];
+        for (int d = 1; d <= dim; d++) {
+            digits[labels[d]] = d;
+        }
+    }
+
+    /**
+     * Finds the canonical form of a board.
+     *
+     * @param board 2D char array of the board
+     * @return the form and its transform
+     * @throws IllegalArgumentException if the board has other chars than
+     *                                  digits and empty cells, or too many
+     *                                  equivalent branches to search
+     */
+    public static CanonicalForm of(char[][] board) {
+        Search search = new Search(board);
+        search.run();
+        return new CanonicalForm(search);
+    }
+
+    /**
+     * Gets the form, equal for equivalent boards only.
+     *
+     * @return a char '0' plus the label per cell, row by row
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Gets the form as a board.
+     *
+     * @return 2D char array of the form, digits relabelled
+     */
+    public char[][] toBoard() {
+        char[][] board = new char[dim][dim];
+        for (int i = 0; i < key.length(); i++) {
+            int label = key.charAt(i) - '0';
+            board[i / dim][i % dim] = label == 0 ? SudokuConfig.EMPTY : BoardSize.symbol(label);
+        }
+        return board;
+    }
+
+    /**
+     * Maps a board of the original orientation and labels, like its
+     * solution, to the form.
+     *
+     * @param board 2D char array of the board
+     * @param form  destination, a char '0' plus the label per cell
+     */
+    public void toForm(char[][] board, char[] form) {
+        for (int r = 0; r < dim; r++) {
+            for (int c = 0; c < dim; c++) {
+                char value = transposed ? board[cols[c]][rows[r]] : board[rows[r]][cols[c]];
+                int digit = BoardSize.digit(value);
+                form[r * dim + c] = (char) ('0' + (digit == 0 ? 0 : labels[digit]));
+            }
+        }
+    }
+
+    /**
+     * Maps a board in the form, like the solution of the form, back to the
+     * orientation and labels of the original board.
+     *
+     * @param form  a char '0' plus the label per cell, row by row
+     * @param board destination 2D char array
+     */
+    public void fromForm(char[] form, char[][] board) {
+        for (int r = 0; r < dim; r++) {
+            for (int c = 0; c < dim; c++) {
+                int label = form[r * dim + c] - '0';
+                char value = label == 0 ? SudokuConfig.EMPTY : BoardSize.symbol(digits[label]);
+                if (transposed) {
+                    board[cols[c]][rows[r]] = value;
+                } else {
+                    board[rows[r]][cols[c]] = value;
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Lists the permutations of 0 to n - 1 in lexicographic order.
+     *
+     * @param n number of elements
+     * @return n! permutations
+     */
+    private static int[][] permutations(int n) {
+        if (n <= 1) {
+            return new int[][]{new int[n]};
+        }
+        int[][] smaller = permutations(n - 1);
+        int[][] perms = new int[smaller.length * n][];
+        int p = 0;
+        for (int first = 0; first < n; first++) {
+            for (int[] rest : smaller) {
+                int[] perm = new int[n];
+                perm[0] = first;
+                for (int i = 0; i < rest.length; i++) {
+                    perm[i + 1] = rest[i] < first ? rest[i] : rest[i] + 1;
+                }
+                perms[p++] = perm;
+            }
+        }
+        return perms;
+    }
+
+    /**
+     * Branch and bound over the symmetries. Rows are picked one at a time,
+     * dropping a branch as soon as its rows read bigger than the best form
+     * so far.
+     * <p>
+     * The columns are kept as blocks of columns the rows so far can't tell
+     * apart, and the stacks as blocks of stacks reading alike. A row sorts
+     * the columns of each block and the stacks of each block into their
+     * smallest reading, which is the same however ties are broken, and only
+     * new digits tied in a block, whose labels depend on the order, are
+     * branched on, through the {@link #PERMUTATIONS} of the tie.
+     */
+    private static class Search {
+
+        /**
+         * Key of a digit not labelled yet, above every label
+         */
+        private final int fresh;
+
+        /**
+         * Rows and columns of the board
+         */
+        private final int dim;
+
+        /**
+         * Rows and columns of a square
+         */
+        private final int box;
+
+        /**
+         * Digit per cell of the board and of its transpose, 0 for empty
+         */
+        private final int[][] grids;
+
+        /**
+         * Pattern of givens per row of the board and of its transpose
+         */
+        private final int[][] masks;
+
+        /**
+         * Smallest form so far, labels per cell
+         */
+        private final int[] best;
+
+        /**
+         * Form of the current branch
+         */
+        private final int[] current;
+
+        /**
+         * Column per position of the form at each depth
+         */
+        private final int[][] cols;
+
+        /**
+         * Whether a position is in the same block as the next one, at each depth
+         */
+        private final boolean[][] ties;
+
+        /**
+         * Whether the stack of a slot reads alike the next one, at each depth
+         */
+        private final boolean[][] stackTies;
+
+        /**
+         * Labels per digit at each depth
+         */
+        private final int[][] labels;
+
+        /**
+         * Number of labels given at each depth
+         */
+        private final int[] given;
+
+        /**
+         * Ties to branch on after reading the row at each depth, three ints
+         * each: the first position or slot, the length, and 1 for positions
+         * or the width of a stack for stacks
+         */
+        private final int[][] branches;
+
+        /**
+         * Number of {@link #branches} at each depth
+         */
+        private final int[] branchCount;
+
+        /**
+         * Row of the grid per row of the current branch
+         */
+        private final int[] rows;
+
+        /**
+         * Cells left to read before giving up
+         */
+        private long budget = MAX_CELLS;
+
+        /**
+         * Depth and row of the grid {@link #sort}ed last, to read the row
+         * without sorting it again right after {@link #peek}ing it
+         */
+        private int sortedDepth = -1, sortedRow;
+
+        /**
+         * Smallest reading of the rows that may be picked at each depth
+         */
+        private final int[][] lowest;
+
+        /**
+         * Rows of the grid reading smallest at each depth, picked one by one
+         */
+        private final int[][] candidates;
+
+        /**
+         * Key per column of the row read, 0 for empty, a label or {@link #fresh}
+         */
+        private final int[] keys;
+
+        /**
+         * Columns sorted within their stacks while reading
+         */
+        private final int[] sorted;
+
+        /**
+         * Ties of {@link #sorted}
+         */
+        private final boolean[] sortedTies;
+
+        /**
+         * First position of the block per position of {@link #sorted}
+         */
+        private final int[] sortedBlocks;
+
+        /**
+         * First position of the block of {@link #sorted} per position of the reading
+         */
+        private final int[] blocks;
+
+        /**
+         * Slot of {@link #sorted} per slot of the reading
+         */
+        private final int[] slots;
+
+        /**
+         * Columns saved while a tie is permuted, per depth, dim ints per tie
+         */
+        private final int[][] saved;
+
+        /**
+         * Grid of the current branch
+         */
+        private int[] grid;
+
+        /**
+         * Pattern of givens per row of the grid of the current branch
+         */
+        private int[] mask;
+
+        /**
+         * Rank of the smallest pattern per row of the grid of the current branch
+         */
+        private int[] pattern;
+
+        /**
+         * Whether the grid of the current branch is the transpose
+         */
+        private boolean transposed;
+
+        /**
+         * Rank of the smallest pattern of givens per row of the board and of its transpose
+         */
+        private final int[][] patterns;
+
+        /**
+         * Numbers of givens per stack of a row, sorted by {@link #pattern}
+         */
+        private final int[] counts;
+
+        /**
+         * Rank of the smallest pattern of givens a first row can make
+         */
+        private int smallest;
+
+        /**
+         * Transform of {@link #best}
+         */
+        private boolean bestTransposed;
+
+        /**
+         * Rows of {@link #best}
+         */
+        private final int[] bestRows;
+
+        /**
+         * Columns of {@link #best}
+         */
+        private final int[] bestCols;
+
+        /**
+         * Labels of {@link #best}
+         */
+        private final int[] bestLabels;
+
+        /**
+         * Creates a search over a board.
+         *
+         * @param board 2D char array of the board
+         */
+        Search(char[][] board) {
+            BoardSize size = BoardSize.of(board);
+            dim = size.getDim();
+            box = size.getBox();
+            fresh = dim + 1;
+            grids = new int[2][dim * dim];
+            masks = new int[2][dim];
+            patterns = new int[2][dim];
+            counts = new int[box];
+            for (int r = 0; r < dim; r++) {
+                for (int c = 0; c < dim; c++) {
+                    int digit = BoardSize.digit(board[r][c]);
+                    if (digit < 0 || digit > dim) {
+                        throw new IllegalArgumentException("Not a digit of a " + size + " board: " + board[r][c]);
+                    }
+                    grids[0][r * dim + c] = digit;
+                    grids[1][c * dim + r] = digit;
+                    if (digit != 0) {
+                        masks[0][r] |= 1 << c;
+                        masks[1][c] |= 1 << r;
+                    }
+                }
+            }
+            best = new int[dim * dim];
+            current = new int[dim * dim];
+            cols = new int[dim + 1][dim];
+            ties = new boolean[dim + 1][dim];
+            stackTies = new boolean[dim + 1][box];
+            labels = new int[dim + 1][dim + 1];
+            given = new int[dim + 1];
+            branches = new int[dim][3 * (dim + box)];
+            branchCount = new int[dim];
+            rows = new int[dim];
+            lowest = new int[dim][dim];
+            candidates = new int[dim][dim];
+            keys = new int[dim];
+            sorted = new int[dim];
+            sortedTies = new boolean[dim];
+            sortedBlocks = new int[dim];
+            blocks = new int[dim];
+            slots = new int[box];
+            saved = new int[dim][(dim + box) * dim];
+            bestRows = new int[dim];
+            bestCols = new int[dim];
+            bestLabels = new int[dim + 1];
+            Arrays.fill(best, fresh);
+
+            // nothing read yet, every column ties within its stack and every stack ties
+            for (int p = 0; p < dim; p++) {
+                cols[0][p] = p;
+                ties[0][p] = p % box != box - 1;
+            }
+            Arrays.fill(stackTies[0], 0, box - 1, true);
+        }
+
+        /**
+         * Searches both orientations.
+         */
+        void run() {
+            smallest = Integer.MAX_VALUE;
+            for (int t = 0; t < 2; t++) {
+                for (int row = 0; row < dim; row++) {
+                    patterns[t][row] = pattern(masks[t][row]);
+                    smallest = Math.min(smallest, patterns[t][row]);
+                }
+            }
+            for (int t = 0; t < 2; t++) {
+                transposed = t == 1;
+                grid = grids[t];
+                mask = masks[t];
+                pattern = patterns[t];
+                pick(0, 0, 0, false);
+            }
+        }
+
+        /**
+         * Ranks the smallest pattern of givens a row can read as, its
+         * stacks sorted by their number of givens, fewest first.
+         *
+         * @param m pattern of givens, a bit per column
+         * @return rank, smaller for a smaller reading
+         */
+        private int pattern(int m) {
+            for (int s = 0; s < box; s++) {
+                int count = Integer.bitCount(m >>> s * box & (1 << box) - 1);
+                int at = s;
+                while (at > 0 && counts[at - 1] > count) {
+                    counts[at] = counts[at - 1];
+                    at--;
+                }
+                counts[at] = count;
+            }
+            int rank = 0;
+            for (int count : counts) {
+                rank = rank * (box + 1) + count;
+            }
+            return rank;
+        }
+
+        /**
+         * Picks the row at a depth and everything below it. Empty rows read
+         * alike, so only the first empty row of a band and the first empty
+         * band are tried.
+         * <p>
+         * The rows are read first and only those reading smallest are
+         * picked, a row reading bigger than another, or than the row of the
+         * best when the branch reads as the best so far, can't lead to the
+         * form whatever is picked below it.
+         *
+         * @param depth row of the form to pick
+         * @param bands bands used, a bit per band
+         * @param used  rows of the current band used, a bit per row
+         * @param less  whether the branch already reads smaller than the best
+         * @return true if a smaller form was found
+         */
+        private boolean pick(int depth, int bands, int used, boolean less) {
+            if (depth == dim) {
+                if (!less) {
+                    // as big as the best, which keeps its transform
+                    return false;
+                }
+                System.arraycopy(current, 0, best, 0, best.length);
+                System.arraycopy(rows, 0, bestRows, 0, dim);
+                System.arraycopy(cols[dim], 0, bestCols, 0, dim);
+                System.arraycopy(labels[dim], 0, bestLabels, 0, dim + 1);
+                bestTransposed = transposed;
+                return true;
+            }
+
+            int[] picked = candidates[depth];
+            int count = 0;
+            // a branch as big as the best so far only goes on with rows reading as small as its row
+            boolean bounded = !less;
+            if (bounded) {
+                System.arraycopy(best, depth * dim, lowest[depth], 0, dim);
+            }
+            boolean first = depth % box == 0;
+            boolean emptyBand = false;
+            int band = depth == 0 ? 0 : rows[depth - 1] / box;
+            for (int b = 0; b < box; b++) {
+                if (first ? (bands & 1 << b) != 0 : b != band) {
+                    continue;
+                }
+                if (first && isEmpty(b)) {
+                    if (emptyBand) {
+                        continue;
+                    }
+                    emptyBand = true;
+                }
+                boolean emptyRow = false;
+                for (int i = 0; i < box; i++) {
+                    int row = b * box + i;
+                    if (!first && (used & 1 << i) != 0
+                            || depth == 0 && pattern[row] != smallest) {
+                        continue;
+                    }
+                    if (mask[row] == 0) {
+                        if (emptyRow) {
+                            continue;
+                        }
+                        emptyRow = true;
+                    }
+                    int cmp = peek(depth, row, count == 0 && !bounded);
+                    if (cmp < 0) {
+                        count = 0;
+                        less = true;
+                    }
+                    if (cmp <= 0) {
+                        picked[count++] = row;
+                    }
+                }
+            }
+
+            boolean found = false;
+            for (int k = 0; k < count; k++) {
+                int row = picked[k];
+                int i = row % box;
+                rows[depth] = row;
+                read(depth, row);
+                if (branch(depth, 0, first ? 1 << i : used | 1 << i, bands | 1 << row / box, less)) {
+                    // the best now shares the rows above, compare the next rows to it
+                    found = true;
+                    less = false;
+                }
+            }
+            return found;
+        }
+
+        /**
+         * Checks if a band has no givens.
+         *
+         * @param band band of the grid
+         * @return true if all its rows are empty
+         */
+        private boolean isEmpty(int band) {
+            for (int i = 0; i < box; i++) {
+                if (mask[band * box + i] != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Tries every order of the ties left from a branch on, then labels
+         * the new digits of the row and picks the rows below.
+         *
+         * @param depth  row of the form just read
+         * @param branch index of the tie to order next
+         * @param used   rows of the current band used below, a bit per row
+         * @param bands  bands used below, a bit per band
+         * @param less   whether the branch already reads smaller than the best
+         * @return true if a smaller form was found
+         */
+        private boolean branch(int depth, int branch, int used, int bands, boolean less) {
+            int[] to = cols[depth + 1];
+            if (branch == branchCount[depth]) {
+                int[] label = labels[depth + 1];
+                System.arraycopy(labels[depth], 0, label, 0, dim + 1);
+                int next = given[depth];
+                int start = rows[depth] * dim;
+                for (int p = 0; p < dim; p++) {
+                    int digit = grid[start + to[p]];
+                    if (digit != 0 && label[digit] == 0) {
+                        label[digit] = ++next;
+                    }
+                }
+                given[depth + 1] = next;
+                return pick(depth + 1, bands, used, less);
+            }
+
+            int[] tie = branches[depth];
+            int start = tie[3 * branch];
+            int length = tie[3 * branch + 1];
+            // a tie of stacks moves whole stacks, which read alike including their ties
+            int width = tie[3 * branch + 2];
+            int[] from = saved[depth];
+            int at = branch * dim;
+            System.arraycopy(to, start * width, from, at, length * width);
+            boolean found = false;
+            for (int[] perm : PERMUTATIONS[length]) {
+                for (int i = 0; i < length; i++) {
+                    for (int j = 0; j < width; j++) {
+                        to[(start + i) * width + j] = from[at + perm[i] * width + j];
+                    }
+                }
+                if (branch(depth, branch + 1, used, bands, less)) {
+                    found = true;
+                    less = false;
+                }
+            }
+            System.arraycopy(from, at, to, start * width, length * width);
+            return found;
+        }
+
+        /**
+         * Reads a row of the grid as the row of the form at a depth and
+         * compares it to the smallest reading at that depth so far, that
+         * of the rows read before it or of the best, keeping the smaller.
+         *
+         * @param depth row of the form
+         * @param row   row of the grid
+         * @param first whether there is no reading at that depth yet
+         * @return negative if the row reads smaller, 0 if equal, positive if bigger
+         */
+        private int peek(int depth, int row, boolean first) {
+            budget -= dim;
+            if (budget < 0) {
+                throw new IllegalArgumentException("Too many equivalent branches to find the form");
+            }
+            int[] low = lowest[depth];
+            int cmp = first ? -1 : 0;
+            boolean[] stackTied = stackTies[depth];
+            boolean untied = true;
+            for (int s = 0; s < box - 1; s++) {
+                untied &= !stackTied[s];
+            }
+            if (untied) {
+                return sort(depth, row, low, cmp);
+            }
+
+            sort(depth, row, null, 0);
+            int next = given[depth];
+            for (int s = 0, p = 0; s < box; s++) {
+                for (int from = slots[s] * box, end = from + box; from < end; from++, p++) {
+                    int key = keys[sorted[from]];
+                    int value = key == fresh ? ++next : key;
+                    if (cmp == 0) {
+                        cmp = Integer.compare(value, low[p]);
+                        if (cmp > 0) {
+                            return cmp;
+                        }
+                    }
+                    if (cmp < 0) {
+                        low[p] = value;
+                    }
+                }
+            }
+            return cmp;
+        }
+
+        /**
+         * Sorts the columns of a row of the grid into the order reading
+         * smallest, within the blocks of columns and of stacks at a depth.
+         * <p>
+         * With stacks that can't move, each block of columns can be
+         * compared to a reading as soon as it is sorted, and the sort
+         * stops at the first block reading bigger.
+         *
+         * @param depth row of the form
+         * @param row   row of the grid
+         * @param low   reading to compare to and to keep the smaller in,
+         *              null to sort only, only given when no stacks are tied
+         * @param cmp   comparison so far, negative to only keep the reading
+         * @return negative if the row reads smaller, 0 if equal, positive if
+         * bigger and not fully sorted, 0 without a reading
+         */
+        private int sort(int depth, int row, int[] low, int cmp) {
+            sortedDepth = depth;
+            sortedRow = row;
+            int[] label = labels[depth];
+            int start = row * dim;
+            for (int c = 0; c < dim; c++) {
+                int digit = grid[start + c];
+                keys[c] = digit == 0 ? 0 : label[digit] != 0 ? label[digit] : fresh;
+            }
+
+            // sort each block of columns, empty first, then by label, new digits last
+            int[] in = cols[depth];
+            boolean[] tied = ties[depth];
+            int next = given[depth];
+            for (int p = 0; p < dim; ) {
+                int end = p;
+                while (tied[end]) {
+                    end++;
+                }
+                for (int q = p; q <= end; q++) {
+                    int col = in[q];
+                    int at = q;
+                    while (at > p && keys[sorted[at - 1]] > keys[col]) {
+                        sorted[at] = sorted[at - 1];
+                        at--;
+                    }
+                    sorted[at] = col;
+                    sortedBlocks[q] = p;
+                }
+                for (int q = p; q < end; q++) {
+                    // empty columns still read alike, anything else is told apart
+                    sortedTies[q] = keys[sorted[q]] == 0 && keys[sorted[q + 1]] == 0;
+                }
+                sortedTies[end] = false;
+                for (int q = p; low != null && q <= end; q++) {
+                    int key = keys[sorted[q]];
+                    int value = key == fresh ? ++next : key;
+                    if (cmp == 0) {
+                        cmp = Integer.compare(value, low[q]);
+                        if (cmp > 0) {
+                            sortedDepth = -1;
+                            return cmp;
+                        }
+                    }
+                    if (cmp < 0) {
+                        low[q] = value;
+                    }
+                }
+                p = end + 1;
+            }
+
+            // sort each block of stacks by their reading, stable within ties
+            boolean[] stackTied = stackTies[depth];
+            for (int s = 0; s < box; ) {
+                int end = s;
+                while (stackTied[end]) {
+                    end++;
+                }
+                for (int q = s; q <= end; q++) {
+                    int at = q;
+                    while (at > s && compareStacks(slots[at - 1], q) > 0) {
+                        slots[at] = slots[at - 1];
+                        at--;
+                    }
+                    slots[at] = q;
+                }
+                s = end + 1;
+            }
+            return cmp;
+        }
+
+        /**
+         * Reads a row of the grid, one of the smallest {@link #peek}ed, as
+         * the row of the form at a depth. The columns below are left in
+         * the order reading smallest, and the ties of new digits to branch
+         * on are listed.
+         *
+         * @param depth row of the form
+         * @param row   row of the grid
+         */
+        private void read(int depth, int row) {
+            if (sortedDepth != depth || sortedRow != row) {
+                sort(depth, row, null, 0);
+            }
+
+            // the reading is the same however the ties are ordered
+            int base = depth * dim;
+            int next = given[depth];
+            int[] out = cols[depth + 1];
+            for (int s = 0, p = 0; s < box; s++) {
+                for (int from = slots[s] * box, end = from + box; from < end; from++, p++) {
+                    out[p] = sorted[from];
+                    int key = keys[out[p]];
+                    current[base + p] = key == fresh ? ++next : key;
+                }
+            }
+
+            boolean[] outTied = ties[depth + 1];
+            for (int s = 0, p = 0; s < box; s++) {
+                for (int from = slots[s] * box, end = from + box; from < end; from++, p++) {
+                    outTied[p] = sortedTies[from];
+                    blocks[p] = sortedBlocks[from];
+                }
+            }
+            boolean[] stackTied = stackTies[depth];
+            boolean[] stackOut = stackTies[depth + 1];
+            for (int s = 0; s < box - 1; s++) {
+                stackOut[s] = stackTied[s] && compareStacks(slots[s], slots[s + 1]) == 0;
+            }
+            stackOut[box - 1] = false;
+
+            int[] list = branches[depth];
+            int count = 0;
+
+            // new digits tied in a block of columns
+            for (int p = 0; p < dim; p++) {
+                int end = p;
+                while (end + 1 < dim && keys[out[p]] == fresh && keys[out[end + 1]] == fresh
+                        && blocks[end + 1] == blocks[p]) {
+                    end++;
+                }
+                if (end > p) {
+                    list[count++] = p;
+                    list[count++] = end - p + 1;
+                    list[count++] = 1;
+                }
+                p = end;
+            }
+
+            // stacks reading alike with new digits, alike without are all empty and stay tied
+            for (int s = 0; s < box; s++) {
+                int end = s;
+                while (stackOut[end]) {
+                    end++;
+                }
+                if (end > s && !isEmpty(out, s)) {
+                    for (int q = s; q < end; q++) {
+                        stackOut[q] = false;
+                    }
+                    list[count++] = s;
+                    list[count++] = end - s + 1;
+                    list[count++] = box;
+                }
+                s = end;
+            }
+            branchCount[depth] = count / 3;
+        }
+
+        /**
+         * Compares the readings of two stacks, new digits alike.
+         *
+         * @param a slot of {@link #sorted}
+         * @param b slot of {@link #sorted}
+         * @return negative if a reads smaller, 0 if alike, positive if bigger
+         */
+        private int compareStacks(int a, int b) {
+            for (int i = 0; i < box; i++) {
+                int cmp = Integer.compare(keys[sorted[a * box + i]], keys[sorted[b * box + i]]);
+                if (cmp != 0) {
+                    return cmp;
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Checks if the row read is empty in a stack.
+         *
+         * @param order column per position
+         * @param slot  slot of the stack
+         * @return true if no column of the slot has a given
+         */
+        private boolean isEmpty(int[] order, int slot) {
+            for (int i = 0; i < box; i++) {
+                if (keys[order[slot * box + i]] != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
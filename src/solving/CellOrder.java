@@ -0,0 +1,105 @@
+package solving;
+
+/**
+ * Strategies that pick which empty cell {@link TrailSolver} branches on next.
+ *
+ * @author Anh Nguyen
+ */
+public enum CellOrder {
+    /**
+     * The first empty cell in reading order, like {@link SudokuConfig#getSuccessor()}
+     */
+    ROW_MAJOR {
+        @Override
+        public int next(Trail trail, int from) {
+            int cells = trail.getSize().getCells();
+            int cell = from;
+            while (cell < cells && !trail.isEmpty(cell)) {
+                cell++;
+            }
+            return cell;
+        }
+    },
+
+    /**
+     * The empty cell with the fewest candidates, ties broken by the
+     * most empty cells sharing its row, column and square
+     */
+    MINIMUM_REMAINING_VALUES {
+        @Override
+        public int next(Trail trail, int from) {
+            int cells = trail.getSize().getCells();
+            int best = cells;
+            int bestCount = Integer.MAX_VALUE;
+            int bestDegree = -1;
+            for (int cell = 0; cell < cells; cell++) {
+                if (!trail.isEmpty(cell)) {
+                    continue;
+                }
+
+                int count = Integer.bitCount(trail.candidates(cell));
+                if (count > bestCount) {
+                    continue;
+                }
+                // no candidates means a dead end, no need to look further
+                if (count == 0) {
+                    return cell;
+                }
+
+                int degree = degree(trail, cell);
+                if (count < bestCount || degree > bestDegree) {
+                    best = cell;
+                    bestCount = count;
+                    bestDegree = degree;
+                }
+            }
+            return best;
+        }
+    };
+
+    /**
+     * Picks the next cell to branch on.
+     *
+     * @param trail {@link Trail} of the board being solved
+     * @param from  cell after the previous branching cell, as row * dim + col
+     * @return the cell as row * dim + col, or the number of cells if the board is full
+     */
+    public abstract int next(Trail trail, int from);
+
+    /**
+     * Counts the other empty cells in the row, column and square of a cell.
+     *
+     * @param trail {@link Trail} of the board
+     * @param cell  cell as row * dim + col
+     * @return number of empty peers
+     */
+    private static int degree(Trail trail, int cell) {
+        char[][] board = trail.getBoard();
+        int dim = trail.getSize().getDim();
+        int box = trail.getSize().getBox();
+        int row = cell / dim;
+        int col = cell % dim;
+
+        int degree = 0;
+        for (int i = 0; i < dim; i++) {
+            if (i != col && board[row][i] == SudokuConfig.EMPTY) {
+                degree++;
+            }
+            if (i != row && board[i][col] == SudokuConfig.EMPTY) {
+                degree++;
+            }
+        }
+
+        int rowStart = row / box * box;
+        int colStart = col / box * box;
+        for (int r = rowStart; r < rowStart + box; r++) {
+            for (int c = colStart; c < colStart + box; c++) {
+                // row and column peers are already counted
+                if (r != row && c != col && board[r][c] == SudokuConfig.EMPTY) {
+                    degree++;
+                }
+            }
+        }
+        return degree;
+    }
+}
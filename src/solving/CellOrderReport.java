@@ -0,0 +1,71 @@
+package solving;
+
+import java.io.IOException;
+
+/**
+ * Prints the guessed and propagated cell counts and the wall time of every
+ * {@link CellOrder}, with and without propagation, on a set of board files,
+ * without starting the GUI.
+ * <p>
+ * Usage: {@code java solving.CellOrderReport [files...]},
+ * defaults to the bundled data/sudoku_1.txt to data/sudoku_6.txt.
+ *
+ * @author Anh Nguyen
+ */
+public class CellOrderReport {
+
+    /**
+     * Number of timed solves per board and order, the fastest one is reported
+     */
+    private static final int RUNS = 5;
+
+    /**
+     * Prints one line per board file, {@link CellOrder} and propagation setting.
+     *
+     * @param args board files
+     * @throws IOException if a file can't be read
+     */
+    public static void main(String[] args) throws IOException {
+        String[] files = args;
+        if (files.length == 0) {
+            files = new String[6];
+            for (int i = 0; i < files.length; i++) {
+                files[i] = "data/sudoku_" + (i + 1) + ".txt";
+            }
+        }
+
+        System.out.printf("%-24s %-26s %-10s %12s %12s %12s%n",
+                "file", "order", "propagate", "guessed", "propagated", "best ms");
+        for (String file : files) {
+            char[][] given = new SudokuConfig(file).getBoard();
+            for (CellOrder order : CellOrder.values()) {
+                for (boolean propagating : new boolean[]{false, true}) {
+                    report(file, given, order, propagating);
+                }
+            }
+        }
+    }
+
+    /**
+     * Solves a board {@link #RUNS} times and prints one line.
+     *
+     * @param file        name of the board file
+     * @param given       2D char array of the board, left untouched
+     * @param order       {@link CellOrder}
+     * @param propagating whether singles are propagated
+     */
+    private static void report(String file, char[][] given, CellOrder order, boolean propagating) {
+        TrailSolver solver = new TrailSolver(order);
+        solver.setPropagating(propagating);
+        long best = Long.MAX_VALUE;
+        boolean solved = false;
+        for (int run = 0; run < RUNS; run++) {
+            char[][] board = new SudokuConfig(given).getBoard();
+            long start = System.nanoTime();
+            solved = solver.solve(board);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-24s %-26s %-10s %12d %12d %12.3f%s%n", file, order, propagating,
+                solver.getNodes(), solver.getPropagated(), best / 1e6, solved ? "" : "  (no solution)");
+    }
+}
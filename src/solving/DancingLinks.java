@@ -0,0 +1,370 @@
+package solving;
+
+/**
+ * Knuth's Algorithm X with Dancing Links, solving Sudoku as an exact cover.
+ * <p>
+ * Every (row, column, digit) placement is a matrix row covering four
+ * constraint columns: the cell is filled, and the digit appears in the
+ * row, the column and the square. The links are kept in int arrays that
+ * are built once per solver and board size, and restored after every solve.
+ *
+ * @author Anh Nguyen
+ */
+public class DancingLinks implements SudokuSolver {
+
+    /**
+     * Index of the root header, column headers come right after it
+     */
+    private static final int ROOT = 0;
+
+    /**
+     * Size of the board the matrix was built for
+     */
+    private BoardSize boardSize;
+
+    /**
+     * Links to the left, right, up and down of every node
+     */
+    private int[] left, right, up, down;
+
+    /**
+     * Column header of every node
+     */
+    private int[] column;
+
+    /**
+     * Matrix row of every node, -1 for headers
+     */
+    private int[] matrixRow;
+
+    /**
+     * Number of nodes left in every column, indexed by header
+     */
+    private int[] count;
+
+    /**
+     * First node of every matrix row
+     */
+    private int[] rowStart;
+
+    /**
+     * Nodes picked by the search, one per filled cell
+     */
+    private int[] picked;
+
+    /**
+     * Number of nodes picked so far
+     */
+    private int depth;
+
+    /**
+     * Used to reject boards with repeated givens
+     */
+    private CandidateMask masks;
+
+    /**
+     * Pauses, resumes and cancels the search
+     */
+    private SolveControl control = new SolveControl();
+
+    /**
+     * Stats given with {@link #setStats(SolverStats)}, may be null
+     */
+    private SolverStats stats;
+
+    /**
+     * Stats of the running solve, null when nothing counts
+     */
+    private SolverStats counting;
+
+    /**
+     * Number of givens picked before the search
+     */
+    private int givens;
+
+    /**
+     * Number of solutions the running search stops at
+     */
+    private long limit;
+
+    /**
+     * Number of solutions the running search found
+     */
+    private long found;
+
+    /**
+     * Creates the linked matrix of an empty 9x9 board.
+     */
+    public DancingLinks() {
+        build(BoardSize.NINE);
+    }
+
+    /**
+     * Builds the linked matrix of an empty board of a given size.
+     * A dim x dim board has 4 * dim^2 constraint columns and dim^3 rows.
+     *
+     * @param size {@link BoardSize}
+     */
+    private void build(BoardSize size) {
+        int dim = size.getDim();
+        int cells = size.getCells();
+        int columns = 4 * cells;
+        int rows = cells * dim;
+        int nodes = 1 + columns + 4 * rows;
+
+        boardSize = size;
+        left = new int[nodes];
+        right = new int[nodes];
+        up = new int[nodes];
+        down = new int[nodes];
+        column = new int[nodes];
+        matrixRow = new int[nodes];
+        count = new int[columns + 1];
+        rowStart = new int[rows];
+        picked = new int[cells];
+        masks = new CandidateMask(size);
+
+        for (int h = ROOT; h <= columns; h++) {
+            left[h] = h == ROOT ? columns : h - 1;
+            right[h] = h == columns ? ROOT : h + 1;
+            up[h] = h;
+            down[h] = h;
+            column[h] = h;
+            matrixRow[h] = -1;
+        }
+
+        int node = columns + 1;
+        int[] headers = new int[4];
+        for (int r = 0; r < dim; r++) {
+            for (int c = 0; c < dim; c++) {
+                for (int d = 0; d < dim; d++) {
+                    int id = (r * dim + c) * dim + d;
+                    headers[0] = r * dim + c;
+                    headers[1] = cells + r * dim + d;
+                    headers[2] = 2 * cells + c * dim + d;
+                    headers[3] = 3 * cells + size.square(r, c) * dim + d;
+                    rowStart[id] = node;
+                    for (int i = 0; i < headers.length; i++) {
+                        int h = headers[i] + 1;
+                        // vertical: append at the bottom of the column
+                        up[node] = up[h];
+                        down[node] = h;
+                        down[up[h]] = node;
+                        up[h] = node;
+                        count[h]++;
+                        // horizontal: circular list of the four nodes
+                        left[node] = i == 0 ? node + 3 : node - 1;
+                        right[node] = i == 3 ? node - 3 : node + 1;
+                        column[node] = h;
+                        matrixRow[node] = id;
+                        node++;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setControl(SolveControl control) {
+        this.control = control;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setStats(SolverStats stats) {
+        this.stats = stats;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean solve(char[][] board) {
+        SolveEvent event = new SolveEvent();
+        counting = event.start(stats);
+        boolean solved = run(board, 1, true) == 1;
+        event.finish(Engine.DANCING_LINKS, board, solved, counting);
+        return solved;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long countSolutions(char[][] board, long limit) {
+        SolveEvent event = new SolveEvent();
+        counting = event.start(stats);
+        long found = run(board, limit, false);
+        event.finish(Engine.DANCING_LINKS, board, found > 0, counting);
+        return found;
+    }
+
+    /**
+     * Searches a board and writes the solution reaching the limit on it, if kept.
+     *
+     * @param board 2D char array of the Sudoku board
+     * @param limit number of solutions to stop at
+     * @param keep  whether the solution reaching the limit is written on the board
+     * @return number of solutions found, at most the limit
+     */
+    private long run(char[][] board, long limit, boolean keep) {
+        if (!BoardSize.isWellFormed(board) || limit <= 0) {
+            return 0;
+        }
+        if (BoardSize.of(board) != boardSize) {
+            build(BoardSize.of(board));
+        }
+        masks.load(board);
+        if (masks.hasClash()) {
+            return 0;
+        }
+
+        // the givens are picked before the search and put back after it
+        int dim = boardSize.getDim();
+        depth = 0;
+        for (int r = 0; r < dim; r++) {
+            for (int c = 0; c < dim; c++) {
+                char cell = board[r][c];
+                if (cell != SudokuConfig.EMPTY) {
+                    int node = rowStart[(r * dim + c) * dim + BoardSize.digit(cell) - 1];
+                    pick(node);
+                    picked[depth++] = node;
+                }
+            }
+        }
+        givens = depth;
+
+        this.limit = limit;
+        found = 0;
+        boolean reached = search();
+        if (reached && keep) {
+            for (int i = givens; i < depth; i++) {
+                int id = matrixRow[picked[i]];
+                board[id / boardSize.getCells()][id / dim % dim] = BoardSize.symbol(id % dim + 1);
+            }
+        }
+
+        while (depth > 0) {
+            unpick(picked[--depth]);
+        }
+        return found;
+    }
+
+    /**
+     * Algorithm X, branching on the column with the fewest nodes left.
+     * Picked nodes stay on {@link #picked} when the solution reaching
+     * {@link #limit} is found.
+     *
+     * @return true once {@link #found} reaches {@link #limit}
+     */
+    private boolean search() {
+        if (right[ROOT] == ROOT) {
+            if (counting != null) {
+                counting.solution();
+            }
+            return ++found == limit;
+        }
+        if (!control.checkpoint()) {
+            return false;
+        }
+
+        int best = right[ROOT];
+        for (int h = right[best]; h != ROOT; h = right[h]) {
+            if (count[h] < count[best]) {
+                best = h;
+            }
+        }
+        if (count[best] == 0) {
+            if (counting != null) {
+                counting.prune();
+            }
+            return false;
+        }
+
+        cover(best);
+        for (int node = down[best]; node != best; node = down[node]) {
+            if (counting != null) {
+                counting.node(depth - givens);
+            }
+            picked[depth++] = node;
+            for (int j = right[node]; j != node; j = right[j]) {
+                cover(column[j]);
+            }
+            if (search()) {
+                return true;
+            }
+            for (int j = left[node]; j != node; j = left[j]) {
+                uncover(column[j]);
+            }
+            depth--;
+        }
+        uncover(best);
+        if (counting != null) {
+            counting.backtrack();
+        }
+        return false;
+    }
+
+    /**
+     * Covers every column of the matrix row of a node.
+     *
+     * @param node any node of the row
+     */
+    private void pick(int node) {
+        cover(column[node]);
+        for (int j = right[node]; j != node; j = right[j]) {
+            cover(column[j]);
+        }
+    }
+
+    /**
+     * Undoes {@link #pick(int)}.
+     *
+     * @param node the node given to pick
+     */
+    private void unpick(int node) {
+        for (int j = left[node]; j != node; j = left[j]) {
+            uncover(column[j]);
+        }
+        uncover(column[node]);
+    }
+
+    /**
+     * Removes a column from the header list and every row of it from the other columns.
+     *
+     * @param h column header
+     */
+    private void cover(int h) {
+        right[left[h]] = right[h];
+        left[right[h]] = left[h];
+        for (int i = down[h]; i != h; i = down[i]) {
+            for (int j = right[i]; j != i; j = right[j]) {
+                down[up[j]] = down[j];
+                up[down[j]] = up[j];
+                count[column[j]]--;
+            }
+        }
+    }
+
+    /**
+     * Undoes {@link #cover(int)}, in the exact reverse order.
+     *
+     * @param h column header
+     */
+    private void uncover(int h) {
+        for (int i = up[h]; i != h; i = up[i]) {
+            for (int j = left[i]; j != i; j = left[j]) {
+                count[column[j]]++;
+                down[up[j]] = j;
+                up[down[j]] = j;
+            }
+        }
+        right[left[h]] = h;
+        left[right[h]] = h;
+    }
+}
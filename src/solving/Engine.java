@@ -0,0 +1,47 @@
+package solving;
+
+/**
+ * The solving engines a Sudoku board can be solved with.
+ *
+ * @author Anh Nguyen
+ */
+public enum Engine {
+    /**
+     * {@link Configuration} based backtracking, copies the board for every successor
+     */
+    BACKTRACKING,
+
+    /**
+     * In place backtracking with an undo trail, see {@link TrailSolver}
+     */
+    TRAIL,
+
+    /**
+     * Exact cover with Dancing Links, see {@link DancingLinks}
+     */
+    DANCING_LINKS,
+
+    /**
+     * Backtracking split across all cores, see {@link ParallelSolver}
+     */
+    PARALLEL;
+
+    /**
+     * Creates a solver of this engine.
+     *
+     * @return a new {@link SudokuSolver}, or null for {@link #BACKTRACKING}
+     * which is driven through {@link Configuration} instead
+     */
+    public SudokuSolver create() {
+        switch (this) {
+            case TRAIL:
+                return new TrailSolver();
+            case DANCING_LINKS:
+                return new DancingLinks();
+            case PARALLEL:
+                return new ParallelSolver();
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package solving;
+
+/**
+ * Difficulty of a puzzle found by a {@link Grader}: the hardest
+ * {@link Technique} it needed, a score and how often each technique was
+ * used.
+ *
+ * @author Anh Nguyen
+ */
+public class Grade {
+
+    /**
+     * Hardest technique used, null if nothing was needed
+     */
+    private final Technique hardest;
+
+    /**
+     * Sum of the weights of every step
+     */
+    private final int score;
+
+    /**
+     * Uses per technique, indexed by ordinal
+     */
+    private final int[] uses;
+
+    /**
+     * Whether the techniques filled the whole board
+     */
+    private final boolean solved;
+
+    /**
+     * Whether grading stopped at the time budget
+     */
+    private final boolean timedOut;
+
+    /**
+     * Creates a grade.
+     *
+     * @param uses     uses per technique, indexed by ordinal, not copied
+     * @param solved   whether the techniques filled the whole board
+     * @param timedOut whether grading stopped at the time budget
+     */
+    Grade(int[] uses, boolean solved, boolean timedOut) {
+        Technique hardest = null;
+        int score = 0;
+        for (Technique technique : Technique.values()) {
+            if (uses[technique.ordinal()] > 0) {
+                hardest = technique;
+                score += uses[technique.ordinal()] * technique.getWeight();
+            }
+        }
+        this.hardest = hardest;
+        this.score = score;
+        this.uses = uses;
+        this.solved = solved;
+        this.timedOut = timedOut;
+    }
+
+    /**
+     * Gets the hardest technique needed. A puzzle the techniques can't
+     * finish needs {@link Technique#TRIAL}.
+     *
+     * @return hardest {@link Technique}, null for a full board
+     */
+    public Technique getHardest() {
+        return hardest;
+    }
+
+    /**
+     * Gets the score, the sum of the weights of every step taken, so
+     * longer and harder solving paths score higher.
+     *
+     * @return score
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Gets how often a technique was used.
+     *
+     * @param technique {@link Technique}
+     * @return number of steps using it
+     */
+    public int getUses(Technique technique) {
+        return uses[technique.ordinal()];
+    }
+
+    /**
+     * Checks if the techniques filled the whole board.
+     *
+     * @return false if the puzzle needs guessing, has no solution or timed out
+     */
+    public boolean isSolved() {
+        return solved;
+    }
+
+    /**
+     * Checks if grading stopped at the time budget, the grade then only
+     * covers the steps taken so far.
+     *
+     * @return true if timed out
+     */
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(hardest == null ? "Nothing to solve" : hardest.toString());
+        text.append(", score ").append(score);
+        if (timedOut) {
+            text.append(", timed out");
+        }
+        return text.toString();
+    }
+}
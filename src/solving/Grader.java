@@ -0,0 +1,657 @@
+package solving;
+
+import java.util.Arrays;
+
+/**
+ * Rates puzzles by solving them the way a person would, one step at a
+ * time with the easiest {@link Technique} that makes progress, without
+ * ever guessing. The hardest technique needed and the weights of all
+ * steps make the {@link Grade}.
+ * <p>
+ * Candidates are kept as one mask per cell, so a step is a few passes
+ * over int arrays. A time budget per puzzle stops boards that take too
+ * many steps, the grade then covers the steps taken.
+ * <p>
+ * Not thread safe, use one grader per thread.
+ *
+ * @author Anh Nguyen
+ */
+public class Grader {
+
+    /**
+     * Time budget per puzzle when none is given, in nanoseconds
+     */
+    public static final long DEFAULT_BUDGET = 100_000_000L;
+
+    /**
+     * Largest subsets and fish looked for, triples and swordfish
+     */
+    private static final int MAX_SUBSET = 3;
+
+    /**
+     * Time budget per puzzle, in nanoseconds
+     */
+    private final long budget;
+
+    /**
+     * Size of the boards graded last, null before the first
+     */
+    private BoardSize size;
+
+    /**
+     * Cells of every row, then every column, then every square
+     */
+    private int[][] units;
+
+    /**
+     * Cells sharing a unit with each cell
+     */
+    private int[][] peers;
+
+    /**
+     * Candidates per cell, 0 for a filled cell
+     */
+    private int[] candidates;
+
+    /**
+     * Digit bit per cell, 0 for an empty cell
+     */
+    private int[] values;
+
+    /**
+     * Candidates of a trial by {@link Technique#FORCING_CHAIN}
+     */
+    private int[] trialCandidates;
+
+    /**
+     * Values of a trial by {@link Technique#FORCING_CHAIN}
+     */
+    private int[] trialValues;
+
+    /**
+     * Cells or digits of a unit, picked for subsets and fish
+     */
+    private int[] picked;
+
+    /**
+     * Number of empty cells
+     */
+    private int empty;
+
+    /**
+     * Time the current puzzle runs out, from {@link System#nanoTime()}
+     */
+    private long deadline;
+
+    /**
+     * Whether the current puzzle ran out of time
+     */
+    private boolean timedOut;
+
+    /**
+     * Creates a grader with the {@link #DEFAULT_BUDGET}.
+     */
+    public Grader() {
+        this(DEFAULT_BUDGET);
+    }
+
+    /**
+     * Creates a grader with a time budget per puzzle.
+     *
+     * @param budget nanoseconds per puzzle
+     */
+    public Grader(long budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * Grades a puzzle.
+     *
+     * @param board 2D char array of the puzzle, not changed
+     * @return the {@link Grade}, not solved if the puzzle breaks the rules
+     * @throws IllegalArgumentException if the board has an unsupported size
+     */
+    public Grade grade(char[][] board) {
+        deadline = System.nanoTime() + budget;
+        timedOut = false;
+        int[] uses = new int[Technique.values().length];
+        if (!load(board)) {
+            return new Grade(uses, false, false);
+        }
+
+        while (empty > 0) {
+            if (System.nanoTime() - deadline > 0) {
+                timedOut = true;
+                break;
+            }
+            Technique technique = step();
+            if (technique == null) {
+                break;
+            }
+            uses[technique.ordinal()]++;
+            if (technique == Technique.TRIAL) {
+                break;
+            }
+        }
+        return new Grade(uses, empty == 0, timedOut);
+    }
+
+    /**
+     * Loads a puzzle, setting up the tables first for a new size.
+     *
+     * @param board 2D char array of the puzzle
+     * @return false if a given is no candidate of its cell
+     */
+    private boolean load(char[][] board) {
+        BoardSize size = BoardSize.of(board);
+        if (size != this.size) {
+            resize(size);
+        }
+        int dim = size.getDim();
+        Arrays.fill(candidates, size.getAll());
+        Arrays.fill(values, 0);
+        empty = size.getCells();
+        for (int cell = 0; cell < size.getCells(); cell++) {
+            char value = board[cell / dim][cell % dim];
+            if (!size.isDigit(value)) {
+                continue;
+            }
+            int bit = BoardSize.bit(value);
+            if ((candidates[cell] & bit) == 0) {
+                return false;
+            }
+            place(candidates, values, cell, bit);
+            empty--;
+        }
+        return true;
+    }
+
+    /**
+     * Makes the tables of a size.
+     *
+     * @param size {@link BoardSize} of the boards
+     */
+    private void resize(BoardSize size) {
+        this.size = size;
+        units = size.getUnits();
+        int cells = size.getCells();
+        peers = new int[cells][];
+        boolean[] seen = new boolean[cells];
+        for (int cell = 0; cell < cells; cell++) {
+            int[] list = new int[3 * size.getDim()];
+            int count = 0;
+            for (int[] unit : units) {
+                if (!contains(unit, cell)) {
+                    continue;
+                }
+                for (int peer : unit) {
+                    if (peer != cell && !seen[peer]) {
+                        seen[peer] = true;
+                        list[count++] = peer;
+                    }
+                }
+            }
+            peers[cell] = Arrays.copyOf(list, count);
+            for (int peer : peers[cell]) {
+                seen[peer] = false;
+            }
+        }
+        candidates = new int[cells];
+        values = new int[cells];
+        trialCandidates = new int[cells];
+        trialValues = new int[cells];
+        picked = new int[MAX_SUBSET];
+    }
+
+    /**
+     * Checks if a unit holds a cell.
+     *
+     * @param unit cells of the unit
+     * @param cell the cell
+     * @return true if the cell is in the unit
+     */
+    private static boolean contains(int[] unit, int cell) {
+        for (int c : unit) {
+            if (c == cell) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Places a digit and removes it from the candidates of the peers.
+     *
+     * @param candidates candidates per cell
+     * @param values     digit bit per cell
+     * @param cell       the cell
+     * @param bit        single bit mask of the digit
+     */
+    private void place(int[] candidates, int[] values, int cell, int bit) {
+        values[cell] = bit;
+        candidates[cell] = 0;
+        for (int peer : peers[cell]) {
+            candidates[peer] &= ~bit;
+        }
+    }
+
+    /**
+     * Takes one step with the easiest technique that makes progress.
+     *
+     * @return the technique, {@link Technique#TRIAL} if none helps, or
+     * null if the board turned out broken or the time ran out
+     */
+    private Technique step() {
+        int single = hiddenSingle(candidates, values);
+        if (single < 0) {
+            return null;
+        }
+        if (single > 0) {
+            empty--;
+            return Technique.HIDDEN_SINGLE;
+        }
+        single = nakedSingle(candidates, values);
+        if (single < 0) {
+            return null;
+        }
+        if (single > 0) {
+            empty--;
+            return Technique.NAKED_SINGLE;
+        }
+        if (pointingClaiming()) {
+            return Technique.POINTING_CLAIMING;
+        }
+        for (int k = 2; k <= MAX_SUBSET; k++) {
+            if (nakedSubset(k)) {
+                return k == 2 ? Technique.NAKED_PAIR : Technique.NAKED_TRIPLE;
+            }
+            if (hiddenSubset(k)) {
+                return k == 2 ? Technique.HIDDEN_PAIR : Technique.HIDDEN_TRIPLE;
+            }
+        }
+        for (int k = 2; k <= MAX_SUBSET; k++) {
+            if (fish(k)) {
+                return k == 2 ? Technique.X_WING : Technique.SWORDFISH;
+            }
+        }
+        if (forcingChain()) {
+            return Technique.FORCING_CHAIN;
+        }
+        return timedOut ? null : Technique.TRIAL;
+    }
+
+    /**
+     * Places the first hidden single found.
+     *
+     * @param candidates candidates per cell
+     * @param values     digit bit per cell
+     * @return 1 if one was placed, 0 if there is none, -1 if a digit has no place left in a unit
+     */
+    private int hiddenSingle(int[] candidates, int[] values) {
+        for (int[] unit : units) {
+            int placed = 0;
+            int once = 0;
+            int twice = 0;
+            for (int cell : unit) {
+                twice |= once & candidates[cell];
+                once |= candidates[cell];
+                placed |= values[cell];
+            }
+            if ((once | placed) != size.getAll()) {
+                return -1;
+            }
+            int hidden = once & ~twice & ~placed;
+            if (hidden != 0) {
+                int bit = hidden & -hidden;
+                for (int cell : unit) {
+                    if ((candidates[cell] & bit) != 0) {
+                        place(candidates, values, cell, bit);
+                        return 1;
+                    }
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Places the first naked single found.
+     *
+     * @param candidates candidates per cell
+     * @param values     digit bit per cell
+     * @return 1 if one was placed, 0 if there is none, -1 if an empty cell has no candidates
+     */
+    private int nakedSingle(int[] candidates, int[] values) {
+        for (int cell = 0; cell < candidates.length; cell++) {
+            int mask = candidates[cell];
+            if (values[cell] != 0) {
+                continue;
+            }
+            if (mask == 0) {
+                return -1;
+            }
+            if ((mask & (mask - 1)) == 0) {
+                place(candidates, values, cell, mask);
+                return 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Removes the digits of a square confined to a row or column from the
+     * rest of that line, and the digits of a line confined to a square
+     * from the rest of that square.
+     *
+     * @return true if a candidate was removed
+     */
+    private boolean pointingClaiming() {
+        int box = size.getBox();
+        int dim = size.getDim();
+        for (int square = 0; square < dim; square++) {
+            int top = square / box * box;
+            int left = square % box * box;
+            for (int line = 0; line < 2 * box; line++) {
+                boolean isRow = line < box;
+                int index = isRow ? top + line : left + line - box;
+                // stack of the square along a row, band along a column
+                int across = (isRow ? left : top) / box;
+                // digits where the square and the line cross, in the rest of the square and of the line
+                int inside = 0;
+                int squareRest = 0;
+                int lineRest = 0;
+                for (int i = 0; i < dim; i++) {
+                    int cell = isRow ? index * dim + i : i * dim + index;
+                    if (i / box == across) {
+                        inside |= candidates[cell];
+                    } else {
+                        lineRest |= candidates[cell];
+                    }
+                    int r = top + i / box;
+                    int c = left + i % box;
+                    if ((isRow ? r : c) != index) {
+                        squareRest |= candidates[r * dim + c];
+                    }
+                }
+                int pointing = inside & ~squareRest & lineRest;
+                int claiming = inside & ~lineRest & squareRest;
+                if (pointing == 0 && claiming == 0) {
+                    continue;
+                }
+                for (int i = 0; i < dim; i++) {
+                    if (i / box != across) {
+                        candidates[isRow ? index * dim + i : i * dim + index] &= ~pointing;
+                    }
+                    int r = top + i / box;
+                    int c = left + i % box;
+                    if ((isRow ? r : c) != index) {
+                        candidates[r * dim + c] &= ~claiming;
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds k cells of a unit with k candidates between them and removes
+     * those candidates from the other cells of the unit.
+     *
+     * @param k size of the subset
+     * @return true if a candidate was removed
+     */
+    private boolean nakedSubset(int k) {
+        for (int[] unit : units) {
+            if (nakedSubset(unit, k, 0, 0, 0)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Picks the cells of a naked subset one at a time.
+     *
+     * @param unit   cells of the unit
+     * @param k      size of the subset
+     * @param from   index in the unit to pick from
+     * @param count  cells picked so far
+     * @param digits candidates of the cells picked
+     * @return true if a candidate was removed
+     */
+    private boolean nakedSubset(int[] unit, int k, int from, int count, int digits) {
+        if (count == k) {
+            if (Integer.bitCount(digits) != k) {
+                return false;
+            }
+            boolean removed = false;
+            for (int i = 0; i < unit.length; i++) {
+                int cell = unit[i];
+                if ((candidates[cell] & digits) != 0 && !isPicked(i, k)) {
+                    candidates[cell] &= ~digits;
+                    removed = true;
+                }
+            }
+            return removed;
+        }
+        for (int i = from; i < unit.length; i++) {
+            int mask = candidates[unit[i]];
+            int bits = Integer.bitCount(mask);
+            if (bits < 2 || bits > k || Integer.bitCount(digits | mask) > k) {
+                continue;
+            }
+            picked[count] = i;
+            if (nakedSubset(unit, k, i + 1, count + 1, digits | mask)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds k digits of a unit with k places between them and removes the
+     * other candidates of those places.
+     *
+     * @param k size of the subset
+     * @return true if a candidate was removed
+     */
+    private boolean hiddenSubset(int k) {
+        for (int[] unit : units) {
+            if (hiddenSubset(unit, k, 0, 0, 0, 0)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Picks the digits of a hidden subset one at a time.
+     *
+     * @param unit   cells of the unit
+     * @param k      size of the subset
+     * @param from   digit index to pick from
+     * @param count  digits picked so far
+     * @param digits digits picked
+     * @param places places of the digits picked, a bit per index in the unit
+     * @return true if a candidate was removed
+     */
+    private boolean hiddenSubset(int[] unit, int k, int from, int count, int digits, int places) {
+        if (count == k) {
+            if (Integer.bitCount(places) != k) {
+                return false;
+            }
+            boolean removed = false;
+            for (int i = 0; i < unit.length; i++) {
+                int cell = unit[i];
+                if ((places & 1 << i) != 0 && (candidates[cell] & ~digits) != 0) {
+                    candidates[cell] &= digits;
+                    removed = true;
+                }
+            }
+            return removed;
+        }
+        for (int d = from; d < size.getDim(); d++) {
+            int bit = 1 << d;
+            int mask = 0;
+            for (int i = 0; i < unit.length; i++) {
+                if ((candidates[unit[i]] & bit) != 0) {
+                    mask |= 1 << i;
+                }
+            }
+            int bits = Integer.bitCount(mask);
+            if (bits < 2 || bits > k || Integer.bitCount(places | mask) > k) {
+                continue;
+            }
+            if (hiddenSubset(unit, k, d + 1, count + 1, digits | bit, places | mask)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if an index of a unit is among the cells picked.
+     *
+     * @param index index in the unit
+     * @param count number of cells picked
+     * @return true if picked
+     */
+    private boolean isPicked(int index, int count) {
+        for (int i = 0; i < count; i++) {
+            if (picked[i] == index) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds k rows confining a digit to k columns, and removes the digit
+     * from the other rows of those columns, then the same with rows and
+     * columns swapped. X-Wing for k = 2, Swordfish for k = 3.
+     *
+     * @param k number of rows
+     * @return true if a candidate was removed
+     */
+    private boolean fish(int k) {
+        int dim = size.getDim();
+        for (int d = 0; d < dim; d++) {
+            int bit = 1 << d;
+            for (int swapped = 0; swapped < 2; swapped++) {
+                if (fish(bit, swapped == 1, k, 0, 0, 0, 0)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Picks the base lines of a fish one at a time.
+     *
+     * @param bit     single bit mask of the digit
+     * @param swapped whether the base lines are columns
+     * @param k       number of base lines
+     * @param from    line to pick from
+     * @param count   lines picked so far
+     * @param lines   lines picked, a bit per line
+     * @param cover   places of the digit in the lines picked, a bit per cross line
+     * @return true if a candidate was removed
+     */
+    private boolean fish(int bit, boolean swapped, int k, int from, int count, int lines, int cover) {
+        int dim = size.getDim();
+        if (count == k) {
+            if (Integer.bitCount(cover) != k) {
+                return false;
+            }
+            boolean removed = false;
+            for (int line = 0; line < dim; line++) {
+                if ((lines & 1 << line) != 0) {
+                    continue;
+                }
+                for (int cross = 0; cross < dim; cross++) {
+                    int cell = swapped ? cross * dim + line : line * dim + cross;
+                    if ((cover & 1 << cross) != 0 && (candidates[cell] & bit) != 0) {
+                        candidates[cell] &= ~bit;
+                        removed = true;
+                    }
+                }
+            }
+            return removed;
+        }
+        for (int line = from; line < dim; line++) {
+            int mask = 0;
+            for (int cross = 0; cross < dim; cross++) {
+                int cell = swapped ? cross * dim + line : line * dim + cross;
+                if ((candidates[cell] & bit) != 0) {
+                    mask |= 1 << cross;
+                }
+            }
+            int bits = Integer.bitCount(mask);
+            if (bits < 2 || bits > k || Integer.bitCount(cover | mask) > k) {
+                continue;
+            }
+            if (fish(bit, swapped, k, line + 1, count + 1, lines | 1 << line, cover | mask)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Places each candidate in turn, cells with fewest candidates first,
+     * and fills singles after it. A candidate leading to a broken board is
+     * removed.
+     *
+     * @return true if a candidate was removed, false if none or the time ran out
+     */
+    private boolean forcingChain() {
+        for (int bits = 2; bits <= size.getDim(); bits++) {
+            for (int cell = 0; cell < candidates.length; cell++) {
+                int mask = candidates[cell];
+                if (Integer.bitCount(mask) != bits) {
+                    continue;
+                }
+                while (mask != 0) {
+                    if (System.nanoTime() - deadline > 0) {
+                        timedOut = true;
+                        return false;
+                    }
+                    int bit = mask & -mask;
+                    mask ^= bit;
+                    if (!survives(cell, bit)) {
+                        candidates[cell] &= ~bit;
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Places a candidate on a copy of the board and fills singles.
+     *
+     * @param cell the cell
+     * @param bit  single bit mask of the candidate
+     * @return false if the board breaks
+     */
+    private boolean survives(int cell, int bit) {
+        System.arraycopy(candidates, 0, trialCandidates, 0, candidates.length);
+        System.arraycopy(values, 0, trialValues, 0, values.length);
+        place(trialCandidates, trialValues, cell, bit);
+        while (true) {
+            int single = hiddenSingle(trialCandidates, trialValues);
+            if (single == 0) {
+                single = nakedSingle(trialCandidates, trialValues);
+            }
+            if (single < 0) {
+                return false;
+            }
+            if (single == 0) {
+                return true;
+            }
+        }
+    }
+}
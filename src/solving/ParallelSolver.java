@@ -0,0 +1,359 @@
+package solving;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Backtracking split across the cores of a {@link ForkJoinPool}.
+ * <p>
+ * The top levels of the search tree become tasks, one per candidate of
+ * the branching cell, which idle workers steal from each other. Below a
+ * cutoff depth each task finishes its subtree with a {@link TrailSolver}.
+ * The task reaching the number of solutions wanted cancels all the others.
+ *
+ * @author Anh Nguyen
+ */
+public class ParallelSolver implements SudokuSolver {
+
+    /**
+     * Default number of levels split into tasks
+     */
+    public static final int DEFAULT_CUTOFF = 4;
+
+    /**
+     * Pool running the tasks
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Number of levels split into tasks, deeper levels are searched sequentially
+     */
+    private final int cutoff;
+
+    /**
+     * Sequential solver of every worker thread
+     */
+    private final ThreadLocal<TrailSolver> leafSolver = ThreadLocal.withInitial(TrailSolver::new);
+
+    /**
+     * Pauses, resumes and cancels the search
+     */
+    private SolveControl control = new SolveControl();
+
+    /**
+     * Stats given with {@link #setStats(SolverStats)}, may be null
+     */
+    private SolverStats stats;
+
+    /**
+     * Creates a solver on the common pool with the default cutoff depth.
+     */
+    public ParallelSolver() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CUTOFF);
+    }
+
+    /**
+     * Creates a solver with its own pool.
+     *
+     * @param parallelism number of worker threads
+     * @param cutoff      number of levels split into tasks
+     */
+    public ParallelSolver(int parallelism, int cutoff) {
+        this(new ForkJoinPool(parallelism), cutoff);
+    }
+
+    /**
+     * Creates a solver on a given pool.
+     *
+     * @param pool   {@link ForkJoinPool} running the tasks
+     * @param cutoff number of levels split into tasks
+     */
+    public ParallelSolver(ForkJoinPool pool, int cutoff) {
+        this.pool = pool;
+        this.cutoff = cutoff;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setControl(SolveControl control) {
+        this.control = control;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setStats(SolverStats stats) {
+        this.stats = stats;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean solve(char[][] board) {
+        SolveEvent event = new SolveEvent();
+        SolverStats counting = event.start(stats);
+        boolean solved = solve(board, counting);
+        event.finish(Engine.PARALLEL, board, solved, counting);
+        return solved;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long countSolutions(char[][] board, long limit) {
+        SolveEvent event = new SolveEvent();
+        SolverStats counting = event.start(stats);
+        long found = 0;
+        if (limit > 0 && BoardSize.isWellFormed(board) && !new CandidateMask(board).hasClash()) {
+            found = search(board, limit, counting).found();
+        }
+        event.finish(Engine.PARALLEL, board, found > 0, counting);
+        return found;
+    }
+
+    /**
+     * Solves a board in place.
+     *
+     * @param board    2D char array of the Sudoku board
+     * @param counting stats to count into, may be null
+     * @return true if the board was filled with a solution
+     */
+    private boolean solve(char[][] board, SolverStats counting) {
+        if (!BoardSize.isWellFormed(board) || new CandidateMask(board).hasClash()) {
+            return false;
+        }
+
+        char[][] solution = search(board, 1, counting).solution.get();
+        if (solution == null) {
+            return false;
+        }
+        for (int i = 0; i < board.length; i++) {
+            System.arraycopy(solution[i], 0, board[i], 0, board.length);
+        }
+        return true;
+    }
+
+    /**
+     * Runs the tasks of a search on a copy of a board.
+     *
+     * @param board    well formed board
+     * @param limit    number of solutions to stop at
+     * @param counting stats to count into, may be null
+     * @return the finished {@link Search}
+     */
+    private Search search(char[][] board, long limit, SolverStats counting) {
+        Search search = new Search(new SolveControl(control), limit, counting);
+        pool.invoke(search.new Branch(copy(board), 0));
+        return search;
+    }
+
+    /**
+     * Shuts the pool down, unless it is the common pool.
+     */
+    public void shutdown() {
+        if (pool != ForkJoinPool.commonPool()) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Copies a board.
+     *
+     * @param board 2D char array
+     * @return a new 2D char array
+     */
+    private static char[][] copy(char[][] board) {
+        char[][] copy = new char[board.length][];
+        for (int i = 0; i < board.length; i++) {
+            copy[i] = board[i].clone();
+        }
+        return copy;
+    }
+
+    /**
+     * State shared by the tasks of one solve.
+     */
+    private class Search {
+
+        /**
+         * First solution found, when searching for one
+         */
+        private final AtomicReference<char[][]> solution = new AtomicReference<>();
+
+        /**
+         * Number of solutions found by all the tasks, may overshoot the limit
+         */
+        private final AtomicLong total = new AtomicLong();
+
+        /**
+         * Number of solutions to stop at
+         */
+        private final long limit;
+
+        /**
+         * Cancelled once the limit is reached, or with the control of the solver
+         */
+        private final SolveControl stop;
+
+        /**
+         * Stats of the whole solve, may be null. Tasks count under its lock
+         * and leaves add their own stats to it.
+         */
+        private final SolverStats counting;
+
+        /**
+         * Creates the state of a solve.
+         *
+         * @param stop     control shared by every task
+         * @param limit    number of solutions to stop at
+         * @param counting stats to count into, may be null
+         */
+        private Search(SolveControl stop, long limit, SolverStats counting) {
+            this.stop = stop;
+            this.limit = limit;
+            this.counting = counting;
+        }
+
+        /**
+         * Gets the number of solutions found.
+         *
+         * @return count, at most the limit
+         */
+        private long found() {
+            return Math.min(total.get(), limit);
+        }
+
+        /**
+         * Records solutions and stops the other tasks once the limit is reached.
+         *
+         * @param board solved board, kept if it is the first one
+         * @param count number of solutions found by the task
+         */
+        private void found(char[][] board, long count) {
+            if (count == 0) {
+                return;
+            }
+            solution.compareAndSet(null, board);
+            if (counting != null) {
+                synchronized (counting) {
+                    counting.solution();
+                }
+            }
+            if (total.addAndGet(count) >= limit) {
+                stop.cancel();
+            }
+        }
+
+        /**
+         * Task searching the subtree of a partly filled board.
+         */
+        private class Branch extends RecursiveAction {
+
+            /**
+             * Version of the serialized form
+             */
+            private static final long serialVersionUID = 1L;
+
+            /**
+             * The board of this subtree, owned by the task
+             */
+            private final char[][] board;
+
+            /**
+             * Number of levels above this task
+             */
+            private final int depth;
+
+            /**
+             * Creates a task.
+             *
+             * @param board board of the subtree
+             * @param depth number of levels above
+             */
+            private Branch(char[][] board, int depth) {
+                this.board = board;
+                this.depth = depth;
+            }
+
+            /**
+             * Propagates, then either searches sequentially below the cutoff
+             * or forks one task per candidate of the branching cell.
+             */
+            @Override
+            protected void compute() {
+                if (!stop.checkpoint()) {
+                    return;
+                }
+
+                if (depth >= cutoff) {
+                    long remaining = limit - total.get();
+                    if (remaining <= 0) {
+                        return;
+                    }
+                    TrailSolver solver = leafSolver.get();
+                    solver.setControl(stop);
+                    SolverStats leaf = null;
+                    if (counting != null) {
+                        leaf = new SolverStats();
+                        leaf.start();
+                    }
+                    long count = limit == 1
+                            ? solver.solve(board, leaf) ? 1 : 0
+                            : solver.countSolutions(board, remaining, leaf);
+                    if (leaf != null) {
+                        counting.add(leaf, depth);
+                    }
+                    found(board, count);
+                    return;
+                }
+
+                Trail trail = new Trail();
+                trail.load(board);
+                if (!new Propagator().propagate(trail)) {
+                    if (counting != null) {
+                        synchronized (counting) {
+                            counting.prune();
+                        }
+                    }
+                    return;
+                }
+                int cell = CellOrder.MINIMUM_REMAINING_VALUES.next(trail, 0);
+                if (cell == trail.getSize().getCells()) {
+                    found(board, 1);
+                    return;
+                }
+
+                int dim = board.length;
+                List<Branch> branches = new ArrayList<>();
+                int candidates = trail.candidates(cell);
+                while (candidates != 0) {
+                    int bit = candidates & -candidates;
+                    candidates ^= bit;
+                    char[][] child = copy(board);
+                    child[cell / dim][cell % dim] = BoardSize.value(bit);
+                    branches.add(new Branch(child, depth + 1));
+                }
+                if (counting != null) {
+                    synchronized (counting) {
+                        for (int i = 0; i < branches.size(); i++) {
+                            counting.node(depth);
+                        }
+                        if (branches.isEmpty()) {
+                            counting.prune();
+                        }
+                    }
+                }
+                invokeAll(branches);
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package solving;
+
+/**
+ * Constraint propagation run by {@link TrailSolver} before each branch.
+ * <p>
+ * Fills naked singles (cells with a single candidate) and hidden singles
+ * (digits with a single place left in a row, column or square) until
+ * nothing changes, and detects dead ends on the way.
+ *
+ * @author Anh Nguyen
+ */
+public class Propagator {
+
+    /**
+     * Cells filled by propagation since the last {@link #resetFilled()}
+     */
+    private long filled;
+
+    /**
+     * Gets the number of cells filled by propagation since the last {@link #resetFilled()}.
+     *
+     * @return filled cell count
+     */
+    public long getFilled() {
+        return filled;
+    }
+
+    /**
+     * Resets the filled cell count.
+     */
+    public void resetFilled() {
+        filled = 0;
+    }
+
+    /**
+     * Fills singles on the trail until there are none left.
+     * Cells filled before a dead end is found stay on the trail,
+     * for the caller to undo.
+     *
+     * @param trail {@link Trail} of the board being solved
+     * @return false if an empty cell has no candidates or a digit
+     * has no place left in a unit
+     */
+    public boolean propagate(Trail trail) {
+        BoardSize size = trail.getSize();
+        int dim = size.getDim();
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+
+            // naked singles
+            for (int cell = 0; cell < size.getCells(); cell++) {
+                if (!trail.isEmpty(cell)) {
+                    continue;
+                }
+                int candidates = trail.candidates(cell);
+                if (candidates == 0) {
+                    return false;
+                }
+                if ((candidates & (candidates - 1)) == 0) {
+                    trail.place(cell, candidates);
+                    filled++;
+                    changed = true;
+                }
+            }
+
+            // hidden singles
+            for (int[] unit : size.getUnits()) {
+                int placed = 0;
+                int once = 0;
+                int twice = 0;
+                for (int cell : unit) {
+                    if (trail.isEmpty(cell)) {
+                        int candidates = trail.candidates(cell);
+                        twice |= once & candidates;
+                        once |= candidates;
+                    } else {
+                        char value = trail.getBoard()[cell / dim][cell % dim];
+                        placed |= BoardSize.bit(value);
+                    }
+                }
+                if ((once | placed) != size.getAll()) {
+                    return false;
+                }
+
+                int hidden = once & ~twice & ~placed;
+                while (hidden != 0) {
+                    int bit = hidden & -hidden;
+                    hidden ^= bit;
+                    int cell = find(trail, unit, bit);
+                    // another hidden single of this unit took the cell
+                    if (cell < 0) {
+                        return false;
+                    }
+                    trail.place(cell, bit);
+                    filled++;
+                    changed = true;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the empty cell of a unit that can still hold a digit.
+     *
+     * @param trail {@link Trail} of the board being solved
+     * @param unit  cells of the unit
+     * @param bit   single bit mask of the digit
+     * @return the cell, or -1 if there is none
+     */
+    private static int find(Trail trail, int[] unit, int bit) {
+        for (int cell : unit) {
+            if (trail.isEmpty(cell) && (trail.candidates(cell) & bit) != 0) {
+                return cell;
+            }
+        }
+        return -1;
+    }
+}
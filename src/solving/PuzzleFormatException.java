@@ -0,0 +1,57 @@
+package solving;
+
+import java.io.IOException;
+
+/**
+ * Malformed puzzle text, with the position of the first offending char.
+ *
+ * @author Anh Nguyen
+ */
+public class PuzzleFormatException extends IOException {
+
+    /**
+     * Version of the serialized form
+     */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Line of the error, from 1
+     */
+    private final long line;
+
+    /**
+     * Column of the error, from 1
+     */
+    private final int column;
+
+    /**
+     * Creates an exception.
+     *
+     * @param line   line of the error, from 1
+     * @param column column of the error, from 1
+     * @param reason what is wrong there
+     */
+    public PuzzleFormatException(long line, int column, String reason) {
+        super("line " + line + ", column " + column + ": " + reason);
+        this.line = line;
+        this.column = column;
+    }
+
+    /**
+     * Gets the line of the error.
+     *
+     * @return line, from 1
+     */
+    public long getLine() {
+        return line;
+    }
+
+    /**
+     * Gets the column of the error.
+     *
+     * @return column, from 1
+     */
+    public int getColumn() {
+        return column;
+    }
+}
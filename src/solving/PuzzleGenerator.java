@@ -0,0 +1,265 @@
+package solving;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Generates puzzles that have exactly one solution.
+ * <p>
+ * A random full grid is filled first, then clues are cleared in random
+ * order, one {@link Symmetry} pair at a time, keeping a clear only while
+ * the puzzle still has a unique solution. That ends either at the target
+ * number of clues or, by default, at a minimal puzzle where no clue can
+ * be cleared anymore.
+ * <p>
+ * Not thread safe, parallel generation uses one generator per thread.
+ *
+ * @author Anh Nguyen
+ */
+public class PuzzleGenerator {
+
+    /**
+     * Target meaning as few clues as possible
+     */
+    public static final int MINIMAL = 0;
+
+    /**
+     * Full grids tried before giving up on reaching the target
+     */
+    private static final int ATTEMPTS = 10;
+
+    /**
+     * Size of the puzzles
+     */
+    private final BoardSize size;
+
+    /**
+     * Source of every random choice
+     */
+    private final SplittableRandom random;
+
+    /**
+     * Fills the grids and checks uniqueness
+     */
+    private final TrailSolver solver = new TrailSolver();
+
+    /**
+     * Cells in the order they are tried, shuffled for every puzzle
+     */
+    private final int[] order;
+
+    /**
+     * Symmetry of the clue pattern
+     */
+    private Symmetry symmetry = Symmetry.NONE;
+
+    /**
+     * Target number of clues, or {@link #MINIMAL}
+     */
+    private int clues = MINIMAL;
+
+    /**
+     * Creates a generator with a random seed.
+     *
+     * @param size {@link BoardSize} of the puzzles
+     */
+    public PuzzleGenerator(BoardSize size) {
+        this(size, new SplittableRandom());
+    }
+
+    /**
+     * Creates a generator that always makes the same puzzles for a seed.
+     *
+     * @param size {@link BoardSize} of the puzzles
+     * @param seed seed of the random choices
+     */
+    public PuzzleGenerator(BoardSize size, long seed) {
+        this(size, new SplittableRandom(seed));
+    }
+
+    /**
+     * Creates a generator.
+     *
+     * @param size   {@link BoardSize} of the puzzles
+     * @param random source of the random choices
+     */
+    private PuzzleGenerator(BoardSize size, SplittableRandom random) {
+        this.size = size;
+        this.random = random;
+        this.order = new int[size.getCells()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+    }
+
+    /**
+     * Sets the symmetry of the clue pattern.
+     *
+     * @param symmetry {@link Symmetry}
+     */
+    public void setSymmetry(Symmetry symmetry) {
+        this.symmetry = symmetry;
+    }
+
+    /**
+     * Sets the number of clues to stop at.
+     *
+     * @param clues number of clues, or {@link #MINIMAL} for as few as possible
+     */
+    public void setClues(int clues) {
+        if (clues < 0 || clues > size.getCells()) {
+            throw new IllegalArgumentException("Clues must be between 0 and " + size.getCells() + ": " + clues);
+        }
+        this.clues = clues;
+    }
+
+    /**
+     * Generates a puzzle with a unique solution.
+     * When the target can't be reached from a few grids, the puzzle with
+     * the fewest clues found is returned.
+     *
+     * @return 2D char array of the puzzle
+     */
+    public char[][] generate() {
+        char[][] best = null;
+        int bestClues = Integer.MAX_VALUE;
+        for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+            char[][] puzzle = solution();
+            int left = dig(puzzle);
+            if (clues == MINIMAL || left <= clues) {
+                return puzzle;
+            }
+            if (left < bestClues) {
+                best = puzzle;
+                bestClues = left;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Fills a random full grid.
+     *
+     * @return 2D char array of the grid
+     */
+    public char[][] solution() {
+        int dim = size.getDim();
+        int box = size.getBox();
+        char[][] board = new char[dim][dim];
+        int[] digits = new int[dim];
+        do {
+            // the squares on the diagonal don't constrain each other
+            for (char[] row : board) {
+                Arrays.fill(row, SudokuConfig.EMPTY);
+            }
+            for (int b = 0; b < box; b++) {
+                shuffle(digits);
+                for (int i = 0; i < dim; i++) {
+                    board[b * box + i / box][b * box + i % box] = BoardSize.symbol(digits[i] + 1);
+                }
+            }
+        } while (!solver.solve(board, null));
+
+        // the solver completes deterministically, relabelling the digits varies it
+        shuffle(digits);
+        for (char[] row : board) {
+            for (int c = 0; c < dim; c++) {
+                row[c] = BoardSize.symbol(digits[BoardSize.digit(row[c]) - 1] + 1);
+            }
+        }
+        return board;
+    }
+
+    /**
+     * Clears clues of a full grid while the solution stays unique.
+     *
+     * @param board full grid, becomes the puzzle
+     * @return number of clues left
+     */
+    private int dig(char[][] board) {
+        int dim = size.getDim();
+        int left = size.getCells();
+        for (int i = order.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+
+        for (int cell : order) {
+            if (clues != MINIMAL && left <= clues) {
+                break;
+            }
+            int partner = symmetry.partner(cell, dim);
+            char value = board[cell / dim][cell % dim];
+            char partnerValue = board[partner / dim][partner % dim];
+            if (value == SudokuConfig.EMPTY) {
+                continue;
+            }
+            int cleared = partner == cell ? 1 : 2;
+            if (clues != MINIMAL && left - cleared < clues) {
+                continue;
+            }
+
+            board[cell / dim][cell % dim] = SudokuConfig.EMPTY;
+            board[partner / dim][partner % dim] = SudokuConfig.EMPTY;
+            // a solution other than the grid differs at the cell, or else at the partner
+            if (stillUnique(board, cell, value)
+                    && (partner == cell || stillUnique(board, partner, partnerValue))) {
+                board[cell / dim][cell % dim] = SudokuConfig.EMPTY;
+                board[partner / dim][partner % dim] = SudokuConfig.EMPTY;
+                left -= cleared;
+            } else {
+                board[partner / dim][partner % dim] = partnerValue;
+            }
+        }
+        return left;
+    }
+
+    /**
+     * Checks that no solution has another value in a cleared cell.
+     * The puzzle was unique before the clear, so only the other
+     * candidates of the cell need to be ruled out, which propagation
+     * mostly does right away. The cell is left with its value.
+     *
+     * @param board puzzle with the cell cleared
+     * @param cell  cleared cell, as row * dim + col
+     * @param value value of the cell in the solution
+     * @return true if the solution is still the only one
+     */
+    private boolean stillUnique(char[][] board, int cell, char value) {
+        int dim = size.getDim();
+        int r = cell / dim;
+        int c = cell % dim;
+        int candidates = size.getAll() & ~BoardSize.bit(value);
+        int top = r - r % size.getBox();
+        int left = c - c % size.getBox();
+        for (int i = 0; i < dim; i++) {
+            candidates &= ~BoardSize.bit(board[r][i]) & ~BoardSize.bit(board[i][c])
+                    & ~BoardSize.bit(board[top + i / size.getBox()][left + i % size.getBox()]);
+        }
+
+        boolean unique = true;
+        while (candidates != 0 && unique) {
+            int bit = candidates & -candidates;
+            candidates ^= bit;
+            board[r][c] = BoardSize.value(bit);
+            unique = solver.countSolutions(board, 1, null) == 0;
+        }
+        board[r][c] = value;
+        return unique;
+    }
+
+    /**
+     * Fills an array with a random permutation of 0 to length - 1.
+     *
+     * @param values array to fill
+     */
+    private void shuffle(int[] values) {
+        for (int i = 0; i < values.length; i++) {
+            int j = random.nextInt(i + 1);
+            values[i] = values[j];
+            values[j] = i;
+        }
+    }
+}
@@ -0,0 +1,502 @@
+package solving;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads puzzles one at a time straight from bytes, in any of the formats
+ * we receive, told apart line by line:
+ * <ul>
+ *     <li>one puzzle per line, dim * dim cells like {@code 4.7..1..}</li>
+ *     <li>grids of dim lines of cells like data/*.txt, whitespace separated or not</li>
+ *     <li>grids with separators like {@code 4 . 7 | . . 1}, separator lines like
+ *     {@code ------+------} are skipped</li>
+ * </ul>
+ * '0' and '.' are empty cells, letters may be lower case. Blank lines and
+ * lines starting with '#' are skipped.
+ * <p>
+ * A line of 16 cells without separators is a 4x4 puzzle or a row of a
+ * 16x16 grid. It starts a grid when the lines after it hold 16 cells
+ * too, unless none of those lines has a digit over 4: a 16x16 puzzle
+ * with only four digits can't have a unique solution, so such lines are
+ * 4x4 puzzles, one per line.
+ * <p>
+ * Only the boards returned are allocated. Malformed input throws a
+ * {@link PuzzleFormatException} at the line and column of the first char
+ * that doesn't fit.
+ *
+ * @author Anh Nguyen
+ */
+public class PuzzleParser implements Closeable {
+
+    /**
+     * Bytes read from the stream at once
+     */
+    private static final int BUFFER = 1 << 16;
+
+    /**
+     * Most cells on a line, a whole 25x25 puzzle
+     */
+    private static final int MAX_CELLS = 625;
+
+    /**
+     * Class of a byte that is no cell
+     */
+    private static final char INVALID = 0;
+
+    /**
+     * Class of whitespace and separators
+     */
+    private static final char SEPARATOR = 1;
+
+    /**
+     * Class of the comment start
+     */
+    private static final char COMMENT = 2;
+
+    /**
+     * Cell value of every byte, or its class if not a cell
+     */
+    private static final char[] VALUES = new char[256];
+
+    static {
+        for (char c : " \t\r\f|+-".toCharArray()) {
+            VALUES[c] = SEPARATOR;
+        }
+        VALUES['#'] = COMMENT;
+        VALUES['.'] = SudokuConfig.EMPTY;
+        VALUES['0'] = SudokuConfig.EMPTY;
+        for (int digit = 1; digit <= 25; digit++) {
+            char symbol = BoardSize.symbol(digit);
+            VALUES[symbol] = symbol;
+            VALUES[Character.toLowerCase(symbol)] = symbol;
+        }
+    }
+
+    /**
+     * Source of more bytes, null to parse the buffer only
+     */
+    private final InputStream in;
+
+    /**
+     * Bytes being parsed
+     */
+    private final byte[] buffer;
+
+    /**
+     * Index of the next byte
+     */
+    private int position;
+
+    /**
+     * Index after the last byte
+     */
+    private int limit;
+
+    /**
+     * Line read last, from 1
+     */
+    private long line;
+
+    /**
+     * Column after the last char of the line read last
+     */
+    private int end;
+
+    /**
+     * Whether the line read last had separators between cells
+     */
+    private boolean separated;
+
+    /**
+     * Cell values of the line read last
+     */
+    private final char[] cells = new char[MAX_CELLS];
+
+    /**
+     * Column of every cell of the line read last
+     */
+    private final int[] columns = new int[MAX_CELLS];
+
+    /**
+     * Cells of a line read ahead and not taken yet, -1 if none
+     */
+    private int pending = -1;
+
+    /**
+     * 4x4 puzzles read ahead while looking for a 16x16 grid
+     */
+    private final char[][][] queued = new char[16][][];
+
+    /**
+     * Line of every puzzle read ahead
+     */
+    private final long[] queuedLines = new long[16];
+
+    /**
+     * Column of the first cell of every puzzle read ahead
+     */
+    private final int[] queuedColumns = new int[16];
+
+    /**
+     * Number of puzzles read ahead
+     */
+    private int queuedCount;
+
+    /**
+     * Index of the next puzzle read ahead to return
+     */
+    private int queuedNext;
+
+    /**
+     * Creates a parser over a stream, buffered on its own.
+     *
+     * @param in source of the puzzles
+     */
+    public PuzzleParser(InputStream in) {
+        this.in = in;
+        this.buffer = new byte[BUFFER];
+    }
+
+    /**
+     * Creates a parser over bytes in memory, which aren't copied.
+     *
+     * @param bytes  text of the puzzles
+     * @param offset index of the first byte
+     * @param length number of bytes
+     */
+    public PuzzleParser(byte[] bytes, int offset, int length) {
+        this.in = null;
+        this.buffer = bytes;
+        this.position = offset;
+        this.limit = offset + length;
+    }
+
+    /**
+     * Parses text holding exactly one puzzle, as pasted by a user.
+     *
+     * @param text text of the puzzle
+     * @return 2D char array of the puzzle
+     * @throws PuzzleFormatException if the text holds no puzzle, a malformed one or more
+     */
+    public static char[][] parse(CharSequence text) throws PuzzleFormatException {
+        byte[] bytes = new byte[text.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            char c = text.charAt(i);
+            // anything outside ASCII is invalid, as is 0xFF
+            bytes[i] = c < 0x80 ? (byte) c : (byte) 0xFF;
+        }
+        PuzzleParser parser = new PuzzleParser(bytes, 0, bytes.length);
+        try {
+            char[][] board = parser.next();
+            if (board == null) {
+                throw new PuzzleFormatException(Math.max(parser.line, 1), 1, "no puzzle found");
+            }
+            if (parser.queuedNext < parser.queuedCount) {
+                throw new PuzzleFormatException(parser.queuedLines[parser.queuedNext],
+                        parser.queuedColumns[parser.queuedNext], "more cells after the puzzle");
+            }
+            if (parser.nextCells() > 0) {
+                throw new PuzzleFormatException(parser.line, parser.columns[0], "more cells after the puzzle");
+            }
+            return board;
+        } catch (PuzzleFormatException pfe) {
+            throw pfe;
+        } catch (IOException ioe) {
+            // no stream to fail
+            throw new IllegalStateException(ioe);
+        }
+    }
+
+    /**
+     * Reads the next puzzle.
+     *
+     * @return 2D char array of the puzzle, or null at the end of the input
+     * @throws PuzzleFormatException if the puzzle is malformed
+     * @throws IOException           if reading fails
+     */
+    public char[][] next() throws IOException {
+        if (queuedNext < queuedCount) {
+            return queued[queuedNext++];
+        }
+        int count = nextCells();
+        if (count < 0) {
+            return null;
+        }
+        if (count == 16 && !separated) {
+            return sixteen();
+        }
+
+        int dim = puzzleDim(count);
+        // separated 16 cells are a row of a 16x16 grid
+        if (dim > 0 && count != 16) {
+            char[][] board = new char[dim][dim];
+            for (int r = 0; r < dim; r++) {
+                row(r * dim, dim, board[r]);
+            }
+            return board;
+        }
+
+        dim = count;
+        if (rowDim(dim) == 0) {
+            throw new PuzzleFormatException(line, columns[0],
+                    "expected a row of 4, 9, 16 or 25 cells or a puzzle of 16, 81, 256 or 625, found " + count);
+        }
+        char[][] board = new char[dim][dim];
+        row(0, dim, board[0]);
+        for (int r = 1; r < dim; r++) {
+            count = nextCells();
+            if (count != dim) {
+                throw rowError(count, r, dim);
+            }
+            row(0, dim, board[r]);
+        }
+        return board;
+    }
+
+    /**
+     * Reads a 16x16 grid starting with the line of 16 cells without
+     * separators read last, or the 4x4 puzzles of the lines up to where
+     * a grid doesn't fit.
+     *
+     * @return the grid, or the first 4x4 puzzle with the others queued
+     * @throws PuzzleFormatException if the lines are neither
+     * @throws IOException           if reading fails
+     */
+    private char[][] sixteen() throws IOException {
+        char[][] board = new char[16][16];
+        // whether every line so far can be a 4x4 puzzle of its own
+        boolean small = true;
+        int rows = 0;
+        int count = 16;
+        while (count == 16 && rows < 16) {
+            row(0, 16, board[rows]);
+            small &= !separated && maxDigit(16) <= 4;
+            queuedLines[rows] = line;
+            queuedColumns[rows] = columns[0];
+            if (++rows < 16) {
+                count = nextCells();
+            }
+        }
+        if (!small) {
+            if (rows < 16) {
+                throw rowError(count, rows, 16);
+            }
+            return board;
+        }
+
+        if (rows < 16 && count > 0) {
+            // the line that ended the run belongs to the next puzzle
+            pending = count;
+        }
+        for (int i = 0; i < rows; i++) {
+            char[][] puzzle = new char[4][4];
+            for (int r = 0; r < 4; r++) {
+                System.arraycopy(board[i], r * 4, puzzle[r], 0, 4);
+            }
+            queued[i] = puzzle;
+        }
+        queuedCount = rows;
+        queuedNext = 1;
+        return queued[0];
+    }
+
+    /**
+     * Creates the error of a grid row with the wrong number of cells, read last.
+     *
+     * @param count number of cells, -1 at the end of the input
+     * @param rows  number of rows read before
+     * @param dim   dimension of the grid
+     * @return the error
+     */
+    private PuzzleFormatException rowError(int count, int rows, int dim) {
+        if (count < 0) {
+            return new PuzzleFormatException(line + 1, 1, "grid ends after " + rows + " of " + dim + " rows");
+        }
+        if (count > dim) {
+            return new PuzzleFormatException(line, columns[dim], "expected " + dim + " cells, found " + count);
+        }
+        return new PuzzleFormatException(line, end, "expected " + dim + " cells, found " + count);
+    }
+
+    /**
+     * Gets the largest digit of the line read last.
+     *
+     * @param count number of cells of the line
+     * @return largest digit, 0 if all empty
+     */
+    private int maxDigit(int count) {
+        int max = 0;
+        for (int c = 0; c < count; c++) {
+            max = Math.max(max, BoardSize.digit(cells[c]));
+        }
+        return max;
+    }
+
+    /**
+     * Gets the line read last, where the last puzzle ended.
+     *
+     * @return line, from 1
+     */
+    public long getLine() {
+        return line;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        if (in != null) {
+            in.close();
+        }
+    }
+
+    /**
+     * Copies cells of the line read last into a row, checking they are digits of the board.
+     *
+     * @param from index of the first cell
+     * @param dim  dimension of the board
+     * @param row  row of the board
+     * @throws PuzzleFormatException if a cell is a digit too large
+     */
+    private void row(int from, int dim, char[] row) throws PuzzleFormatException {
+        for (int c = 0; c < dim; c++) {
+            char value = cells[from + c];
+            if (BoardSize.digit(value) > dim) {
+                throw new PuzzleFormatException(line, columns[from + c],
+                        "'" + value + "' is no digit of a " + dim + "x" + dim + " board");
+            }
+            row[c] = value;
+        }
+    }
+
+    /**
+     * Reads the cells of the next line with any, skipping the others.
+     *
+     * @return number of cells, -1 at the end of the input
+     * @throws PuzzleFormatException if a char is no cell nor separator, or a line holds too many cells
+     * @throws IOException           if reading fails
+     */
+    private int nextCells() throws IOException {
+        if (pending >= 0) {
+            int count = pending;
+            pending = -1;
+            return count;
+        }
+        int count;
+        do {
+            count = readLine();
+        } while (count == 0);
+        return count;
+    }
+
+    /**
+     * Reads the cells of the next line.
+     *
+     * @return number of cells, -1 at the end of the input
+     * @throws PuzzleFormatException if a char is no cell nor separator, or the line holds too many cells
+     * @throws IOException           if reading fails
+     */
+    private int readLine() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        line++;
+        separated = false;
+        boolean comment = false;
+        boolean gap = false;
+        int count = 0;
+        int column = 0;
+        while (position < limit || fill()) {
+            int b = buffer[position++] & 0xFF;
+            if (b == '\n') {
+                break;
+            }
+            column++;
+            if (comment) {
+                continue;
+            }
+            char value = VALUES[b];
+            if (value == SEPARATOR) {
+                gap = count > 0;
+            } else if (value == COMMENT && count == 0) {
+                comment = true;
+            } else if (value <= COMMENT) {
+                throw new PuzzleFormatException(line, column, "unexpected " + describe(b));
+            } else if (count == MAX_CELLS) {
+                throw new PuzzleFormatException(line, column, "more than " + MAX_CELLS + " cells on a line");
+            } else {
+                separated |= gap;
+                gap = false;
+                cells[count] = value;
+                columns[count++] = column;
+            }
+        }
+        end = column + 1;
+        return count;
+    }
+
+    /**
+     * Refills the buffer from the stream.
+     *
+     * @return false at the end of the stream
+     * @throws IOException if reading fails
+     */
+    private boolean fill() throws IOException {
+        if (in == null) {
+            return false;
+        }
+        int read = in.read(buffer, 0, buffer.length);
+        if (read <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+
+    /**
+     * Describes an unexpected byte.
+     *
+     * @param b the byte
+     * @return the char quoted if printable, its code otherwise
+     */
+    private static String describe(int b) {
+        if (b >= 0x80) {
+            return "non-ASCII character";
+        }
+        return b > ' ' && b < 0x7F ? "'" + (char) b + "'" : String.format("character 0x%02X", b);
+    }
+
+    /**
+     * Gets the dimension of a puzzle with a number of cells.
+     *
+     * @param cells number of cells
+     * @return 4, 9, 16 or 25, 0 if no puzzle has that many cells
+     */
+    private static int puzzleDim(int cells) {
+        for (int box = 2; box * box * box * box <= cells; box++) {
+            if (box * box * box * box == cells) {
+                return box * box;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Checks a number of cells of a grid row.
+     *
+     * @param cells number of cells
+     * @return the dimension, 0 if no board has rows that long
+     */
+    private static int rowDim(int cells) {
+        for (int box = 2; box * box <= cells; box++) {
+            if (box * box == cells) {
+                return box <= 5 ? cells : 0;
+            }
+        }
+        return 0;
+    }
+}
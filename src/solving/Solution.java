@@ -0,0 +1,58 @@
+package solving;
+
+/**
+ * Outcome of a solve by an {@link AsyncSolver}: the solved board, if
+ * any, and how long the solve took.
+ *
+ * @author Anh Nguyen
+ */
+public class Solution {
+
+    /**
+     * 2D char array of the solved board, null if there is no solution
+     */
+    private final char[][] board;
+
+    /**
+     * Nanoseconds spent solving, not waiting
+     */
+    private final long nanos;
+
+    /**
+     * Creates a solution.
+     *
+     * @param board 2D char array of the solved board, null if there is none
+     * @param nanos nanoseconds spent solving
+     */
+    Solution(char[][] board, long nanos) {
+        this.board = board;
+        this.nanos = nanos;
+    }
+
+    /**
+     * Checks if the puzzle has a solution.
+     *
+     * @return true if solved
+     */
+    public boolean isSolved() {
+        return board != null;
+    }
+
+    /**
+     * Gets the solved board, a copy of the puzzle filled in.
+     *
+     * @return 2D char array of the board, null if there is no solution
+     */
+    public char[][] getBoard() {
+        return board;
+    }
+
+    /**
+     * Gets the time spent solving, not counting the wait for a worker.
+     *
+     * @return nanoseconds
+     */
+    public long getNanos() {
+        return nanos;
+    }
+}
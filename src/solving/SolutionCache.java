@@ -0,0 +1,389 @@
+package solving;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of solutions keyed by {@link CanonicalForm}, so a puzzle
+ * solved once is found again as any relabelled, permuted or transposed
+ * variant. Solutions are kept in the form of their puzzle and evicted
+ * least recently used first. Puzzles without a solution are kept too.
+ * <p>
+ * Finding the form costs a fraction of a solve of a 9x9 puzzle, but
+ * still far more than a hash lookup, so the puzzles are also kept
+ * exactly as they were given, with their solution as is. A puzzle seen
+ * before is found there, and only a new variant pays for its form.
+ * Boards with more givens than empty cells, which solve faster than
+ * their form is found, and boards whose form search gives up, are only
+ * kept as given.
+ * <p>
+ * Thread safe, one cache can be shared by a {@link CachingSolver} per thread.
+ *
+ * @author Anh Nguyen
+ */
+public class SolutionCache {
+
+    /**
+     * Kept for a puzzle without a solution
+     */
+    private static final char[] NO_SOLUTION = new char[0];
+
+    /**
+     * Solutions per canonical form, in access order
+     */
+    private final Map<String, char[]> solutions;
+
+    /**
+     * Solutions per puzzle as given, cells row by row, in access order
+     */
+    private final Map<String, char[]> exact;
+
+    /**
+     * Lookups that found a solution or that there is none
+     */
+    private final AtomicLong hits = new AtomicLong();
+
+    /**
+     * Lookups that found nothing
+     */
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Entries dropped to stay within the capacity
+     */
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * What a lookup found, and the keys of a puzzle not found to store its solution under.
+     */
+    static final class Lookup {
+
+        /**
+         * {@link #keyOf(char[][])} of the puzzle, null if it isn't well formed
+         */
+        private String key;
+
+        /**
+         * Form of the puzzle, null if not looked up by form
+         */
+        private CanonicalForm form;
+
+        /**
+         * Solution cells row by row, {@link #NO_SOLUTION}, or null on a miss
+         */
+        private char[] solution;
+
+        /**
+         * Checks if the puzzle was found, with a solution or without.
+         *
+         * @return true on a hit
+         */
+        boolean isHit() {
+            return solution != null;
+        }
+
+        /**
+         * Checks if the puzzle was found with a solution, filled in the board.
+         *
+         * @return true on a hit with a solution
+         */
+        boolean isSolved() {
+            return solution != null && solution != NO_SOLUTION;
+        }
+    }
+
+    /**
+     * Creates a cache.
+     *
+     * @param capacity number of puzzles kept
+     */
+    public SolutionCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.solutions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, char[]> eldest) {
+                if (size() > capacity) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.exact = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, char[]> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Gets the key of a board as given.
+     *
+     * @param board 2D char array of a square board
+     * @return the cells row by row
+     */
+    private static String keyOf(char[][] board) {
+        return new String(cellsOf(board));
+    }
+
+    /**
+     * Fills a board with a solution of cells row by row.
+     *
+     * @param cells solution, cells row by row
+     * @param board destination 2D char array
+     */
+    private static void fill(char[] cells, char[][] board) {
+        int dim = board.length;
+        for (int r = 0; r < dim; r++) {
+            System.arraycopy(cells, r * dim, board[r], 0, dim);
+        }
+    }
+
+    /**
+     * Gets the cells of a board row by row.
+     *
+     * @param board 2D char array of a square board
+     * @return a new array of the cells
+     */
+    private static char[] cellsOf(char[][] board) {
+        int dim = board.length;
+        char[] cells = new char[dim * dim];
+        for (int r = 0; r < dim; r++) {
+            System.arraycopy(board[r], 0, cells, r * dim, dim);
+        }
+        return cells;
+    }
+
+    /**
+     * Checks if a board is looked up by its {@link CanonicalForm} too, a
+     * board with at most half its cells given. Denser boards solve faster
+     * than their form is found, so they are only looked up as given.
+     *
+     * @param board 2D char array of a well formed board
+     * @return true if the board is cached by its form
+     */
+    private static boolean byForm(char[][] board) {
+        int given = 0;
+        for (char[] row : board) {
+            for (char cell : row) {
+                if (cell != SudokuConfig.EMPTY) {
+                    given++;
+                }
+            }
+        }
+        return 2 * given <= board.length * board.length;
+    }
+
+    /**
+     * Finds the form of a board looked up by form.
+     *
+     * @param board 2D char array of a well formed board
+     * @return the form, null if not looked up by form or the search gave up
+     */
+    private static CanonicalForm formOf(char[][] board) {
+        if (!byForm(board)) {
+            return null;
+        }
+        try {
+            return CanonicalForm.of(board);
+        } catch (IllegalArgumentException iae) {
+            return null;
+        }
+    }
+
+    /**
+     * Fills a board with its cached solution.
+     *
+     * @param board 2D char array of the puzzle, filled on a hit
+     * @return true if a solution was cached, false if none
+     */
+    public boolean lookup(char[][] board) {
+        Lookup lookup = new Lookup();
+        lookup(board, lookup);
+        return lookup.isSolved();
+    }
+
+    /**
+     * Fills a board with its cached solution, as given first, then by its
+     * form. On a miss the keys found are kept for {@link #store(Lookup, char[][])}.
+     *
+     * @param board  2D char array of the puzzle, filled on a hit
+     * @param lookup result, reused
+     */
+    void lookup(char[][] board, Lookup lookup) {
+        lookup.key = null;
+        lookup.form = null;
+        lookup.solution = null;
+        if (!BoardSize.isWellFormed(board)) {
+            return;
+        }
+        lookup.key = keyOf(board);
+        char[] solution = getExact(lookup.key);
+        if (solution == null) {
+            lookup.form = formOf(board);
+            solution = lookup.form == null ? null : get(lookup.form.getKey());
+            if (solution != null && solution != NO_SOLUTION) {
+                lookup.form.fromForm(solution, board);
+                solution = cellsOf(board);
+            }
+            if (solution != null) {
+                // found as given next time
+                putExact(lookup.key, solution);
+            }
+        } else if (solution != NO_SOLUTION) {
+            fill(solution, board);
+        }
+        lookup.solution = solution;
+        (solution == null ? misses : hits).incrementAndGet();
+    }
+
+    /**
+     * Caches the solution of a puzzle solved elsewhere.
+     *
+     * @param puzzle   2D char array of the puzzle
+     * @param solution 2D char array of its solution
+     */
+    public void store(char[][] puzzle, char[][] solution) {
+        if (!BoardSize.isWellFormed(puzzle)) {
+            return;
+        }
+        Lookup miss = new Lookup();
+        miss.key = keyOf(puzzle);
+        miss.form = formOf(puzzle);
+        store(miss, solution);
+    }
+
+    /**
+     * Caches the solution of a puzzle looked up without a hit, under the
+     * keys found by the lookup.
+     *
+     * @param miss     {@link Lookup} of the puzzle
+     * @param solution 2D char array of its solution, null if it has none
+     */
+    void store(Lookup miss, char[][] solution) {
+        if (miss.key == null) {
+            return;
+        }
+        if (solution == null) {
+            if (miss.form != null) {
+                put(miss.form.getKey(), NO_SOLUTION);
+            }
+            putExact(miss.key, NO_SOLUTION);
+            return;
+        }
+        if (miss.form != null) {
+            char[] cells = new char[solution.length * solution.length];
+            miss.form.toForm(solution, cells);
+            put(miss.form.getKey(), cells);
+        }
+        putExact(miss.key, cellsOf(solution));
+    }
+
+    /**
+     * Looks up the solution of a canonical form.
+     *
+     * @param key {@link CanonicalForm#getKey()} of the puzzle
+     * @return the solution in the form, {@link #NO_SOLUTION}, or null if not cached
+     */
+    private synchronized char[] get(String key) {
+        return solutions.get(key);
+    }
+
+    /**
+     * Caches the solution of a canonical form.
+     *
+     * @param key      {@link CanonicalForm#getKey()} of the puzzle
+     * @param solution the solution in the form, or {@link #NO_SOLUTION}
+     */
+    private synchronized void put(String key, char[] solution) {
+        solutions.put(key, solution);
+    }
+
+    /**
+     * Looks up the solution of a puzzle as given.
+     *
+     * @param key {@link #keyOf(char[][])} of the puzzle
+     * @return the solution cells row by row, {@link #NO_SOLUTION}, or null if not cached
+     */
+    private synchronized char[] getExact(String key) {
+        return exact.get(key);
+    }
+
+    /**
+     * Caches the solution of a puzzle as given.
+     *
+     * @param key      {@link #keyOf(char[][])} of the puzzle
+     * @param solution the solution cells row by row, or {@link #NO_SOLUTION}
+     */
+    private synchronized void putExact(String key, char[] solution) {
+        exact.put(key, solution);
+    }
+
+    /**
+     * Gets the number of puzzles cached as given.
+     *
+     * @return number of entries
+     */
+    public synchronized int size() {
+        return exact.size();
+    }
+
+    /**
+     * Drops every entry, keeping the counters.
+     */
+    public synchronized void clear() {
+        solutions.clear();
+        exact.clear();
+    }
+
+    /**
+     * Gets the number of lookups that found an entry.
+     *
+     * @return hits
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of lookups that found nothing.
+     *
+     * @return misses
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Gets the number of entries dropped to stay within the capacity.
+     *
+     * @return evictions
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Gets the share of lookups that found an entry.
+     *
+     * @return hit rate from 0 to 1, 0 before any lookup
+     */
+    public double getHitRate() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return String.format("%d entries, %d hits, %d misses (%.1f%% hits), %d evictions",
+                size(), getHits(), getMisses(), getHitRate() * 100, getEvictions());
+    }
+}
@@ -0,0 +1,133 @@
+package solving;
+
+/**
+ * Pauses, resumes and cancels a running solve from another thread.
+ * The search calls {@link #checkpoint()} once per node, which only
+ * reads a volatile field while the solve is running.
+ * <p>
+ * A control can have a parent, for searches split into parts that stop
+ * together while still obeying the control of the whole solve.
+ *
+ * @author Anh Nguyen
+ */
+public class SolveControl {
+
+    /**
+     * The search keeps going
+     */
+    private static final int RUNNING = 0;
+
+    /**
+     * The search waits in {@link #checkpoint()}
+     */
+    private static final int PAUSED = 1;
+
+    /**
+     * The search gives up at the next checkpoint
+     */
+    private static final int CANCELLED = 2;
+
+    /**
+     * One of {@link #RUNNING}, {@link #PAUSED} and {@link #CANCELLED}
+     */
+    private volatile int state = RUNNING;
+
+    /**
+     * Control that pauses and cancels this one as well, may be null
+     */
+    private final SolveControl parent;
+
+    /**
+     * Creates a control without a parent.
+     */
+    public SolveControl() {
+        this(null);
+    }
+
+    /**
+     * Creates a control that also obeys a given parent.
+     *
+     * @param parent {@link SolveControl} of the enclosing solve, may be null
+     */
+    public SolveControl(SolveControl parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * Makes the search wait at its next checkpoint until resumed or cancelled.
+     */
+    public synchronized void pause() {
+        if (state == RUNNING) {
+            state = PAUSED;
+        }
+    }
+
+    /**
+     * Lets a paused search go on.
+     */
+    public synchronized void resume() {
+        if (state == PAUSED) {
+            state = RUNNING;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Makes the search give up at its next checkpoint, even when paused.
+     */
+    public synchronized void cancel() {
+        state = CANCELLED;
+        notifyAll();
+    }
+
+    /**
+     * Gets ready for a new solve, clearing a previous pause or cancel.
+     */
+    public synchronized void reset() {
+        state = RUNNING;
+        notifyAll();
+    }
+
+    /**
+     * Checks if the solve was cancelled, here or by the parent.
+     *
+     * @return true if cancelled
+     */
+    public boolean isCancelled() {
+        return state == CANCELLED || parent != null && parent.isCancelled();
+    }
+
+    /**
+     * Checks if the solve is paused.
+     *
+     * @return true if paused
+     */
+    public boolean isPaused() {
+        return state == PAUSED;
+    }
+
+    /**
+     * Called by the search between nodes. Blocks while this or the parent is paused.
+     *
+     * @return false if the search has to stop
+     */
+    public boolean checkpoint() {
+        if (parent != null && !parent.checkpoint()) {
+            return false;
+        }
+        if (state == RUNNING) {
+            return true;
+        }
+        synchronized (this) {
+            while (state == PAUSED) {
+                try {
+                    wait();
+                } catch (InterruptedException ie) {
+                    state = CANCELLED;
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return state == RUNNING;
+        }
+    }
+}
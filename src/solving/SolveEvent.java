@@ -0,0 +1,116 @@
+package solving;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event of one solve, committed by every engine.
+ * <p>
+ * While a recording has the event enabled, solves without
+ * {@link SolverStats} count into stats of their own so the event
+ * carries the counters too. Otherwise the event costs a disabled check.
+ *
+ * @author Anh Nguyen
+ */
+@Name("solving.Solve")
+@Label("Sudoku Solve")
+@Category("Sudoku")
+@Description("A solve of a Sudoku board")
+public class SolveEvent extends Event {
+
+    /**
+     * Name of the {@link Engine}
+     */
+    @Label("Engine")
+    String engine;
+
+    /**
+     * Dimension of the board
+     */
+    @Label("Dimension")
+    int dimension;
+
+    /**
+     * Whether a solution was found
+     */
+    @Label("Solved")
+    boolean solved;
+
+    /**
+     * Nodes expanded
+     */
+    @Label("Nodes")
+    long nodes;
+
+    /**
+     * Backtracks
+     */
+    @Label("Backtracks")
+    long backtracks;
+
+    /**
+     * Dead ends found without branching
+     */
+    @Label("Pruned")
+    long pruned;
+
+    /**
+     * Deepest node expanded
+     */
+    @Label("Max Depth")
+    int maxDepth;
+
+    /**
+     * Time to the first solution
+     */
+    @Label("First Solution")
+    @Timespan(Timespan.NANOSECONDS)
+    long firstSolution;
+
+    /**
+     * Starts the event of a solve.
+     *
+     * @param stats stats given to the solver, may be null
+     * @return stats to count into, null if neither the solver nor a recording wants them
+     */
+    public SolverStats start(SolverStats stats) {
+        begin();
+        if (stats == null && isEnabled()) {
+            stats = new SolverStats();
+        }
+        if (stats != null) {
+            stats.start();
+        }
+        return stats;
+    }
+
+    /**
+     * Ends the event and commits it, if a recording wants it.
+     *
+     * @param engine    engine that solved
+     * @param board     the board solved
+     * @param solved    whether a solution was found
+     * @param stats     stats returned by {@link #start(SolverStats)}
+     */
+    public void finish(Engine engine, char[][] board, boolean solved, SolverStats stats) {
+        end();
+        if (!shouldCommit()) {
+            return;
+        }
+        this.engine = engine.name();
+        this.dimension = board == null ? 0 : board.length;
+        this.solved = solved;
+        if (stats != null) {
+            nodes = stats.getNodes();
+            backtracks = stats.getBacktracks();
+            pruned = stats.getPruned();
+            maxDepth = stats.getMaxDepth();
+            firstSolution = stats.getFirstSolution();
+        }
+        commit();
+    }
+}
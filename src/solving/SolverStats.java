@@ -0,0 +1,194 @@
+package solving;
+
+import java.util.Arrays;
+
+/**
+ * Counters of a solve, filled by a {@link SudokuSolver} given one with
+ * {@link SudokuSolver#setStats(SolverStats)}. Solvers without stats only
+ * test a null field per node.
+ * <p>
+ * Not thread safe, parallel searches count per task and {@link #add} the
+ * counts together.
+ *
+ * @author Anh Nguyen
+ */
+public class SolverStats {
+
+    /**
+     * Nodes expanded, one per candidate placed while branching
+     */
+    private long nodes;
+
+    /**
+     * Branching points left after every candidate failed
+     */
+    private long backtracks;
+
+    /**
+     * Dead ends found without branching, by a constraint check or propagation
+     */
+    private long pruned;
+
+    /**
+     * Deepest node expanded
+     */
+    private int maxDepth = -1;
+
+    /**
+     * Nodes expanded at each depth
+     */
+    private long[] depths = new long[0];
+
+    /**
+     * Start of the solve, from {@link System#nanoTime()}
+     */
+    private long start;
+
+    /**
+     * Nanoseconds from the start to the first solution, -1 until one is found
+     */
+    private long firstSolution = -1;
+
+    /**
+     * Clears the counters and starts the clock of a new solve.
+     */
+    public void start() {
+        nodes = 0;
+        backtracks = 0;
+        pruned = 0;
+        maxDepth = -1;
+        Arrays.fill(depths, 0);
+        firstSolution = -1;
+        start = System.nanoTime();
+    }
+
+    /**
+     * Counts a node.
+     *
+     * @param depth number of branching points above it
+     */
+    public void node(int depth) {
+        nodes++;
+        if (depth > maxDepth) {
+            maxDepth = depth;
+            if (depth >= depths.length) {
+                depths = Arrays.copyOf(depths, Math.max(depth + 1, depths.length * 2));
+            }
+        }
+        depths[depth]++;
+    }
+
+    /**
+     * Counts a backtrack.
+     */
+    public void backtrack() {
+        backtracks++;
+    }
+
+    /**
+     * Counts a dead end found without branching.
+     */
+    public void prune() {
+        pruned++;
+    }
+
+    /**
+     * Records the time of a solution, if it is the first one.
+     */
+    public void solution() {
+        if (firstSolution < 0) {
+            firstSolution = System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Adds the counts of a part of the search.
+     *
+     * @param part   stats of the part
+     * @param offset depth of the part in the whole search
+     */
+    public synchronized void add(SolverStats part, int offset) {
+        nodes += part.nodes;
+        backtracks += part.backtracks;
+        pruned += part.pruned;
+        if (part.maxDepth + offset > maxDepth) {
+            maxDepth = part.maxDepth + offset;
+            if (maxDepth >= depths.length) {
+                depths = Arrays.copyOf(depths, Math.max(maxDepth + 1, depths.length * 2));
+            }
+        }
+        for (int d = 0; d <= part.maxDepth; d++) {
+            depths[d + offset] += part.depths[d];
+        }
+        if (part.firstSolution >= 0) {
+            long found = part.start + part.firstSolution - start;
+            if (firstSolution < 0 || found < firstSolution) {
+                firstSolution = found;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of nodes expanded.
+     *
+     * @return node count
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Gets the number of backtracks.
+     *
+     * @return backtrack count
+     */
+    public long getBacktracks() {
+        return backtracks;
+    }
+
+    /**
+     * Gets the number of dead ends found without branching.
+     *
+     * @return pruned count
+     */
+    public long getPruned() {
+        return pruned;
+    }
+
+    /**
+     * Gets the deepest node expanded.
+     *
+     * @return depth, -1 if nothing was expanded
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Gets the nodes expanded at each depth.
+     *
+     * @return counts from depth 0 to {@link #getMaxDepth()}
+     */
+    public long[] getDepthHistogram() {
+        return Arrays.copyOf(depths, maxDepth + 1);
+    }
+
+    /**
+     * Gets the time to the first solution.
+     *
+     * @return nanoseconds, -1 if none was found
+     */
+    public long getFirstSolution() {
+        return firstSolution;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "nodes " + nodes + ", backtracks " + backtracks + ", pruned " + pruned
+                + ", max depth " + maxDepth + ", first solution "
+                + (firstSolution < 0 ? "none" : String.format("%.3f ms", firstSolution / 1e6));
+    }
+}
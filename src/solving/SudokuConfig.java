@@ -1,12 +1,13 @@
 package solving;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.IOException;
-import java.util.*;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 
 /**
- * The configuration of a Sudoku board.
+ * The configuration of a Sudoku board of any {@link BoardSize}.
  * Only works with {@link visualization.SudokuModel}
  *
  * @author Anh Nguyen
@@ -14,19 +15,29 @@ import java.util.*;
 public class SudokuConfig implements Configuration {
 
     /**
-     * Dimension of the Sudoku board
+     * Dimension of the classic Sudoku board, used by the empty constructor
      */
-    public static int DIM = 9;
+    public static final int DIM = 9;
 
     /**
      * Representation of an empty cell is '0'
      */
     public static char EMPTY = '0';
 
+    /**
+     * Dimension and square size of the Sudoku board
+     */
+    private final BoardSize size;
+
     /**
      * 2D char array representation of the Sudoku board
      */
-    private char[][] board = new char[DIM][DIM];
+    private char[][] board;
+
+    /**
+     * Row, column and square occupancy of {@link #board}
+     */
+    private CandidateMask masks;
 
     /**
      * The current row
@@ -38,6 +49,33 @@ public class SudokuConfig implements Configuration {
      */
     private int col;
 
+    /**
+     * Order the candidates of a cell are tried in, shared with the successors
+     */
+    private ValueOrder valueOrder = ValueOrder.NATURAL;
+
+    /**
+     * Seed of this node for {@link ValueOrder#RANDOM}, each successor derives its own
+     */
+    private long seed;
+
+    /**
+     * Scratch of {@link ValueOrder#order}, shared by the copies, which are searched on one thread
+     */
+    private int[] order;
+
+    /**
+     * Sets the order the successors try the candidates of a cell in.
+     * The same order and seed always explore the same tree.
+     *
+     * @param valueOrder {@link ValueOrder}
+     * @param seed       seed of this configuration
+     */
+    public void setValueOrder(ValueOrder valueOrder, long seed) {
+        this.valueOrder = valueOrder;
+        this.seed = seed;
+    }
+
     /**
      * Gets the board.
      *
@@ -48,22 +86,34 @@ public class SudokuConfig implements Configuration {
     }
 
     /**
-     * Creates a new Configuration by reading a given file.
+     * Gets the dimension and square size of the board.
+     *
+     * @return {@link BoardSize}
+     */
+    public BoardSize getSize() {
+        return size;
+    }
+
+    /**
+     * Creates a new Configuration by reading a given file, in any format
+     * of a {@link PuzzleParser}.
      *
      * @param filename given filename
-     * @throws IOException throws an error if the file doesn't exist
+     * @throws IOException throws an error if the file doesn't exist,
+     * holds no puzzle or a malformed one
      */
     public SudokuConfig(String filename) throws IOException {
-        BufferedReader in = new BufferedReader(new FileReader(filename));
-
-        for (int i = 0; i < DIM; i++) {
-            // removes whitespaces with replaceAll
-            char[] read = in.readLine().replaceAll("\\s+", "").toCharArray();
-            System.arraycopy(read, 0, board[i], 0, DIM);
+        try (PuzzleParser in = new PuzzleParser(new FileInputStream(filename))) {
+            board = in.next();
+        } catch (PuzzleFormatException pfe) {
+            throw new IOException(filename + ": " + pfe.getMessage(), pfe);
         }
+        if (board == null) {
+            throw new IOException(filename + ": no puzzle found");
+        }
+        size = BoardSize.of(board);
 
-        in.close();
-
+        masks = new CandidateMask(board);
         row = 0;
         col = -1;
     }
@@ -75,24 +125,40 @@ public class SudokuConfig implements Configuration {
      * @param givenBoard 2D char array of a pre-made Sudoku board
      */
     public SudokuConfig(char[][] givenBoard) {
-        for (int i = 0; i < givenBoard.length; i++) {
-            System.arraycopy(givenBoard[i], 0, board[i], 0, DIM);
+        size = BoardSize.of(givenBoard);
+        int dim = size.getDim();
+        board = new char[dim][dim];
+        for (int i = 0; i < dim; i++) {
+            System.arraycopy(givenBoard[i], 0, board[i], 0, dim);
         }
 
+        masks = new CandidateMask(board);
         row = 0;
         col = -1;
     }
 
     /**
-     * Creates a new Configuration with an empty board (i.e all zeros).
+     * Creates a new Configuration with an empty 9x9 board (i.e all zeros).
      */
     public SudokuConfig() {
-        for (int i = 0; i < DIM; i++) {
+        this(BoardSize.NINE);
+    }
+
+    /**
+     * Creates a new Configuration with an empty board of a given size.
+     *
+     * @param size {@link BoardSize}
+     */
+    public SudokuConfig(BoardSize size) {
+        this.size = size;
+        int dim = size.getDim();
+        board = new char[dim][dim];
+        for (char[] emptyRow : board) {
             // initializes empty board
-            char[] emptyBoard = "000000000".toCharArray();
-            System.arraycopy(emptyBoard, 0, board[i], 0, DIM);
+            Arrays.fill(emptyRow, EMPTY);
         }
 
+        masks = new CandidateMask(size);
         row = 0;
         col = -1;
     }
@@ -104,12 +170,18 @@ public class SudokuConfig implements Configuration {
      * @param other the Configuration to be copied to
      */
     private SudokuConfig(SudokuConfig other) {
+        size = other.size;
         row = other.row;
         col = other.col;
-
-        board = new char[DIM][DIM];
-        for (int i = 0; i < DIM; i++) {
-            System.arraycopy(other.board[i], 0, this.board[i], 0, DIM);
+        valueOrder = other.valueOrder;
+        seed = other.seed;
+        order = other.order;
+        masks = new CandidateMask(other.masks);
+
+        int dim = size.getDim();
+        board = new char[dim][dim];
+        for (int i = 0; i < dim; i++) {
+            System.arraycopy(other.board[i], 0, this.board[i], 0, dim);
         }
     }
 
@@ -129,13 +201,9 @@ public class SudokuConfig implements Configuration {
      */
     @Override
     public boolean isGoal() {
-        int sum = 0;
-        for (Character c : board[DIM - 1]) {
-            sum += Character.getNumericValue(c);
-        }
-        // sum from 1 to 9 is 45, means filled
-        // would be funny if the last row is already filled from the beginning
-        return sum == 45;
+        // every cell up to the current one has been validated
+        int last = size.getDim() - 1;
+        return row == last && col == last;
     }
 
     /**
@@ -144,123 +212,25 @@ public class SudokuConfig implements Configuration {
      * @return true if valid
      */
     private boolean checkStraight() {
-        char num = board[row][col];
-        for (int i = 0; i < DIM; i++) {
-            if (i != col && board[row][i] == num) {
-                return false;
-            }
-            if (i != row && board[i][col] == num) {
-                return false;
-            }
-        }
-        return true;
+        return !masks.clashesStraight(row, col, BoardSize.bit(board[row][col]));
     }
 
     /**
-     * Validates the successor within a square of size root of {@link #DIM}.
+     * Validates the successor within its square.
      *
      * @return true if valid
      */
     private boolean checkSquare() {
-        Set<Character> squareSet = new HashSet<>();
-        int rowLoc = row % 3;
-        int colLoc = col % 3;
-        int rowSave = rowLoc;
-        int colSave = colLoc;
-
-        int i = 0;
-        int j = 0;
-        // loop 3 times
-        while (i++ < 3) {
-            // index 2 of square wraps back to index 0
-            if (rowLoc + 1 == 3) {
-                rowLoc = -rowSave;
-            }
-
-            // loop 3 times
-            while (j++ < 3) {
-                if (rowLoc == 0 && colLoc == 0) continue;
-
-                // index 2 of square wraps back to index 0
-                if (colLoc + 1 == 3) {
-                    colLoc = -colSave;
-                }
-
-                char cell = board[row + rowLoc][col + colLoc];
-                if (!squareSet.isEmpty() && squareSet.contains(cell)) {
-                    return false;
-                }
-                squareSet.add(cell);
-                colLoc++;
-            }
-
-            rowLoc++;
-            // reset column values for each row
-            colLoc = colSave;
-            j = 0;
-        }
-        return true;
+        return !masks.clashesSquare(row, col, BoardSize.bit(board[row][col]));
     }
 
     /**
      * Gets the candidates that could be successors
      *
-     * @return a List of char of candidates
+     * @return mask of the candidates, see {@link CandidateMask}
      */
-    private List<Character> getCandidates() {
-        // all possible candidates
-        List<Character> candidates = new LinkedList<>(List.of('1', '2', '3', '4', '5', '6', '7', '8', '9'));
-
-        for (int i = 0; i < DIM; i++) {
-            // check horizontal
-            if (candidates.contains(board[row][i])) {
-                candidates.remove((Character) board[row][i]);
-            }
-            // check vertical
-            if (candidates.contains(board[i][col])) {
-                candidates.remove((Character) board[i][col]);
-            }
-        }
-
-        // check 3x3 squares
-        int rowLoc = row % 3;
-        int colLoc = col % 3;
-        int rowSave = rowLoc;
-        int colSave = colLoc;
-
-        int i = 0;
-        int j = 0;
-        // loop 3 times
-        while (i++ < 3) {
-            // index 2 of square wraps back to index 0
-            if (rowLoc + 1 == 3) {
-                rowLoc = -rowSave;
-            }
-
-            // loop 3 times
-            while (j++ < 3) {
-                if (rowLoc == 0 && colLoc == 0) continue;
-
-                // index 2 of square wraps back to index 0
-                if (colLoc + 1 == 3) {
-                    colLoc = -colSave;
-                }
-
-                if (candidates.contains(board[row + rowLoc][col + colLoc])) {
-                    candidates.remove((Character) board[row + rowLoc][col + colLoc]);
-                }
-                colLoc++;
-            }
-
-            rowLoc++;
-            // reset column values for each row
-            colLoc = colSave;
-            j = 0;
-        }
-
-        Collections.shuffle(candidates);
-
-        return candidates;
+    private int getCandidates() {
+        return masks.candidates(row, col);
     }
 
     /**
@@ -271,16 +241,27 @@ public class SudokuConfig implements Configuration {
     public Collection<Configuration> getSuccessor() {
         Collection<Configuration> suc = new LinkedHashSet<>();
 
-        if (++col == DIM) {
+        int dim = size.getDim();
+        if (++col == dim) {
             col = 0;
             row++;
         }
 
         if (board[row][col] == EMPTY) {
-            for (char c : getCandidates()) {
-                SudokuConfig child = new SudokuConfig(this);
-                child.board[row][col] = c;
-                suc.add(child);
+            int candidates = getCandidates();
+            if (valueOrder == ValueOrder.NATURAL) {
+                // smallest digit first straight from the mask
+                for (; candidates != 0; candidates &= candidates - 1) {
+                    suc.add(child(candidates & -candidates));
+                }
+            } else {
+                if (order == null) {
+                    order = new int[2 * dim];
+                }
+                int count = valueOrder.order(candidates, seed, board, masks, row, col, order);
+                for (int i = 0; i < count; i++) {
+                    suc.add(child(order[i]));
+                }
             }
         } else {
             SudokuConfig filled = new SudokuConfig(this);
@@ -290,16 +271,30 @@ public class SudokuConfig implements Configuration {
         return suc;
     }
 
+    /**
+     * Creates the successor filling the current cell with a candidate.
+     *
+     * @param bit mask bit of the candidate
+     * @return the successor
+     */
+    private SudokuConfig child(int bit) {
+        SudokuConfig child = new SudokuConfig(this);
+        child.board[row][col] = BoardSize.value(bit);
+        child.masks.place(row, col, bit);
+        child.seed = ValueOrder.mix(seed + bit);
+        return child;
+    }
+
     /**
      * {@inheritDoc}
      * @return
      */
     @Override
     public boolean isValid() {
-        if (row % 3 == 2 && col % 3 == 2 && !checkSquare()) {
+        if (!size.isDigit(board[row][col])) {
             return false;
         }
-        return checkStraight();
+        return checkSquare() && checkStraight();
     }
 
     /**
@@ -309,17 +304,21 @@ public class SudokuConfig implements Configuration {
     @Override
     public String toString() {
         StringBuilder out = new StringBuilder();
+        int dim = size.getDim();
+        int box = size.getBox();
+        // 2 chars per cell and per square divider, minus the trailing space
+        String divider = "-".repeat(2 * dim + 2 * (box - 1) - 1);
 
-        for (int i = 0; i < DIM; i++) {
-            for (int j = 0; j < DIM - 1; j++) {
+        for (int i = 0; i < dim; i++) {
+            for (int j = 0; j < dim - 1; j++) {
                 out.append(board[i][j]).append(" ");
-                if (j != DIM - 1 && j % 3 == 2) {
+                if (j % box == box - 1) {
                     out.append("| ");
                 }
             }
-            out.append(board[i][DIM - 1]).append("\n");
-            if (i != DIM - 1 && i % 3 == 2) {
-                out.append("---------------------\n");
+            out.append(board[i][dim - 1]).append("\n");
+            if (i != dim - 1 && i % box == box - 1) {
+                out.append(divider).append("\n");
             }
         }
 
@@ -0,0 +1,45 @@
+package solving;
+
+/**
+ * Solving engine that works directly on a 2D char array of a Sudoku board,
+ * as opposed to the {@link Configuration} based backtracking.
+ *
+ * @author Anh Nguyen
+ */
+public interface SudokuSolver {
+
+    /**
+     * Solves a board in place. Empty cells are {@link SudokuConfig#EMPTY}.
+     *
+     * @param board 2D char array of the Sudoku board
+     * @return true if the board was filled with a solution,
+     * false if there is none (the board is then left as given)
+     */
+    boolean solve(char[][] board);
+
+    /**
+     * Counts the solutions of a board, stopping as soon as the limit is
+     * reached. A limit of 2 tells whether a puzzle is well-posed.
+     *
+     * @param board 2D char array of the Sudoku board, left as given
+     * @param limit number of solutions to stop at
+     * @return number of solutions found, at most the limit,
+     * fewer if the count was cancelled
+     */
+    long countSolutions(char[][] board, long limit);
+
+    /**
+     * Sets the control checked between nodes, so that a running solve
+     * can be paused, resumed or cancelled. A cancelled solve returns false.
+     *
+     * @param control {@link SolveControl}
+     */
+    void setControl(SolveControl control);
+
+    /**
+     * Sets the stats counted by the next solves, restarted by each one.
+     *
+     * @param stats {@link SolverStats}, null to count nothing
+     */
+    void setStats(SolverStats stats);
+}
@@ -0,0 +1,58 @@
+package solving;
+
+/**
+ * Symmetries of the clue pattern of a generated puzzle, see {@link PuzzleGenerator}.
+ * Each maps a cell to its partner, the cells of a pair are cleared together.
+ *
+ * @author Anh Nguyen
+ */
+public enum Symmetry {
+    /**
+     * Any pattern
+     */
+    NONE {
+        @Override
+        public int partner(int cell, int dim) {
+            return cell;
+        }
+    },
+
+    /**
+     * The pattern looks the same turned half a turn around the center
+     */
+    ROTATIONAL {
+        @Override
+        public int partner(int cell, int dim) {
+            return dim * dim - 1 - cell;
+        }
+    },
+
+    /**
+     * The pattern mirrors across the vertical center line
+     */
+    MIRROR {
+        @Override
+        public int partner(int cell, int dim) {
+            return cell / dim * dim + dim - 1 - cell % dim;
+        }
+    },
+
+    /**
+     * The pattern mirrors across the main diagonal
+     */
+    DIAGONAL {
+        @Override
+        public int partner(int cell, int dim) {
+            return cell % dim * dim + cell / dim;
+        }
+    };
+
+    /**
+     * Gets the cell paired with a cell.
+     *
+     * @param cell cell as row * dim + col
+     * @param dim  dimension of the board
+     * @return the partner, the cell itself on the axis or center
+     */
+    public abstract int partner(int cell, int dim);
+}
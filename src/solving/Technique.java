@@ -0,0 +1,104 @@
+package solving;
+
+/**
+ * Solving techniques a person would use, easiest first, as tried by the
+ * {@link Grader}. Each has a weight adding to the score of a puzzle every
+ * time it is needed.
+ *
+ * @author Anh Nguyen
+ */
+public enum Technique {
+    /**
+     * The only place left for a digit in a row, column or square
+     */
+    HIDDEN_SINGLE("Hidden single", 10),
+
+    /**
+     * The only digit left for a cell
+     */
+    NAKED_SINGLE("Naked single", 15),
+
+    /**
+     * A digit of a square confined to one row or column, or of a row or
+     * column confined to one square, leaves the rest of the other unit
+     */
+    POINTING_CLAIMING("Pointing/claiming", 25),
+
+    /**
+     * Two cells of a unit with the same two candidates
+     */
+    NAKED_PAIR("Naked pair", 30),
+
+    /**
+     * Two digits of a unit with the same two places
+     */
+    HIDDEN_PAIR("Hidden pair", 35),
+
+    /**
+     * Three cells of a unit with three candidates between them
+     */
+    NAKED_TRIPLE("Naked triple", 40),
+
+    /**
+     * Three digits of a unit with three places between them
+     */
+    HIDDEN_TRIPLE("Hidden triple", 45),
+
+    /**
+     * A digit confined to the same two columns in two rows, or the other way round
+     */
+    X_WING("X-Wing", 50),
+
+    /**
+     * A digit confined to the same three columns in three rows, or the other way round
+     */
+    SWORDFISH("Swordfish", 60),
+
+    /**
+     * A candidate whose singles lead to a contradiction
+     */
+    FORCING_CHAIN("Forcing chain", 80),
+
+    /**
+     * Nothing above helps, the puzzle needs guessing
+     */
+    TRIAL("Trial and error", 200);
+
+    /**
+     * Name shown to users
+     */
+    private final String title;
+
+    /**
+     * Score added per use
+     */
+    private final int weight;
+
+    /**
+     * Creates a technique.
+     *
+     * @param title  name shown to users
+     * @param weight score added per use
+     */
+    Technique(String title, int weight) {
+        this.title = title;
+        this.weight = weight;
+    }
+
+    /**
+     * Gets the score added per use.
+     *
+     * @return weight
+     */
+    public int getWeight() {
+        return weight;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return title;
+    }
+}
@@ -0,0 +1,146 @@
+package solving;
+
+/**
+ * A board that is filled in place and emptied again from a trail of
+ * the cells placed, together with its {@link CandidateMask}.
+ * Shared by {@link TrailSolver} and {@link Propagator}.
+ *
+ * @author Anh Nguyen
+ */
+public class Trail {
+
+    /**
+     * Row, column and square occupancy of the board
+     */
+    private CandidateMask masks;
+
+    /**
+     * Cells placed so far, as row * dim + col, in placing order
+     */
+    private int[] cells;
+
+    /**
+     * Number of rows of the board
+     */
+    private int dim;
+
+    /**
+     * Number of cells on the trail
+     */
+    private int size;
+
+    /**
+     * The board being filled
+     */
+    private char[][] board;
+
+    /**
+     * Starts a new trail on a given board.
+     * Only allocates when the board has another size than the previous one.
+     *
+     * @param board 2D char array of the board, filled in place
+     */
+    public void load(char[][] board) {
+        BoardSize boardSize = BoardSize.of(board);
+        if (masks == null || masks.getSize() != boardSize) {
+            masks = new CandidateMask(boardSize);
+            cells = new int[boardSize.getCells()];
+            dim = boardSize.getDim();
+        }
+        this.board = board;
+        masks.load(board);
+        size = 0;
+    }
+
+    /**
+     * Stops working on the board, leaving it as it is.
+     */
+    public void release() {
+        board = null;
+    }
+
+    /**
+     * Gets the board being filled.
+     *
+     * @return 2D char array
+     */
+    public char[][] getBoard() {
+        return board;
+    }
+
+    /**
+     * Gets the size of the board.
+     *
+     * @return {@link BoardSize}
+     */
+    public BoardSize getSize() {
+        return masks.getSize();
+    }
+
+    /**
+     * Gets the occupancy of the board.
+     *
+     * @return {@link CandidateMask}
+     */
+    public CandidateMask getMasks() {
+        return masks;
+    }
+
+    /**
+     * Gets the number of cells on the trail, to be passed to {@link #undo(int)}.
+     *
+     * @return size of the trail
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if a cell is empty.
+     *
+     * @param cell cell as row * dim + col
+     * @return true if empty
+     */
+    public boolean isEmpty(int cell) {
+        return board[cell / dim][cell % dim] == SudokuConfig.EMPTY;
+    }
+
+    /**
+     * Gets the candidates of a cell.
+     *
+     * @param cell cell as row * dim + col
+     * @return mask of the candidates
+     */
+    public int candidates(int cell) {
+        return masks.candidates(cell / dim, cell % dim);
+    }
+
+    /**
+     * Places a digit on the board and pushes the cell on the trail.
+     *
+     * @param cell cell as row * dim + col
+     * @param bit  single bit mask of the digit
+     */
+    public void place(int cell, int bit) {
+        int row = cell / dim;
+        int col = cell % dim;
+        board[row][col] = BoardSize.value(bit);
+        masks.place(row, col, bit);
+        cells[size++] = cell;
+    }
+
+    /**
+     * Pops the trail and empties the popped cells until it is back to a given size.
+     *
+     * @param mark size of the trail to go back to
+     */
+    public void undo(int mark) {
+        while (size > mark) {
+            int cell = cells[--size];
+            int row = cell / dim;
+            int col = cell % dim;
+            masks.unplace(row, col, BoardSize.bit(board[row][col]));
+            board[row][col] = SudokuConfig.EMPTY;
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package solving;
+
+/**
+ * Backtracking that mutates a single board in place.
+ * <p>
+ * Every placement is pushed on a trail and undone from it on backtrack,
+ * so that no board is copied and nothing is allocated per node, unlike
+ * {@link SudokuConfig#getSuccessor()}. The cell to branch on is picked
+ * by a {@link CellOrder}, after a {@link Propagator} has filled the singles.
+ * <p>
+ * The search is iterative over a preallocated stack of decision frames,
+ * so it can't overflow the call stack and it can be paused, resumed or
+ * cancelled through a {@link SolveControl} between nodes.
+ *
+ * @author Anh Nguyen
+ */
+public class TrailSolver implements SudokuSolver {
+
+    /**
+     * The board being solved and its trail
+     */
+    private final Trail trail = new Trail();
+
+    /**
+     * Fills the singles before each branch
+     */
+    private final Propagator propagator = new Propagator();
+
+    /**
+     * Trail size when each frame was entered, undone when the frame is popped
+     */
+    private int[] frameMark = new int[0];
+
+    /**
+     * Trail size after each frame propagated, undone before trying its next candidate
+     */
+    private int[] frameBranch = new int[0];
+
+    /**
+     * Cell each frame branches on, as row * dim + col
+     */
+    private int[] frameCell = new int[0];
+
+    /**
+     * Candidates each frame has not tried yet
+     */
+    private int[] frameCandidates = new int[0];
+
+    /**
+     * Pauses, resumes and cancels the search
+     */
+    private SolveControl control = new SolveControl();
+
+    /**
+     * Strategy picking the cell to branch on
+     */
+    private CellOrder order;
+
+    /**
+     * Whether {@link #propagator} runs before each branch
+     */
+    private boolean propagating = true;
+
+    /**
+     * Stats given with {@link #setStats(SolverStats)}, may be null
+     */
+    private SolverStats stats;
+
+    /**
+     * Stats of the running solve, null when nothing counts
+     */
+    private SolverStats counting;
+
+    /**
+     * Nodes (placements guessed while branching) of the last solve
+     */
+    private long nodes;
+
+    /**
+     * Creates a solver that propagates and branches on the cell with the fewest candidates.
+     */
+    public TrailSolver() {
+        this(CellOrder.MINIMUM_REMAINING_VALUES);
+    }
+
+    /**
+     * Creates a solver with a given cell order.
+     *
+     * @param order {@link CellOrder}
+     */
+    public TrailSolver(CellOrder order) {
+        this.order = order;
+    }
+
+    /**
+     * Sets the strategy picking the cell to branch on.
+     *
+     * @param order {@link CellOrder}
+     */
+    public void setCellOrder(CellOrder order) {
+        this.order = order;
+    }
+
+    /**
+     * Turns the propagation of singles before each branch on or off.
+     *
+     * @param propagating true to propagate
+     */
+    public void setPropagating(boolean propagating) {
+        this.propagating = propagating;
+    }
+
+    /**
+     * Gets the number of placements guessed while branching in the last solve.
+     *
+     * @return node count
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Gets the number of cells filled by propagation in the last solve,
+     * including the ones undone on backtrack.
+     *
+     * @return filled cell count
+     */
+    public long getPropagated() {
+        return propagator.getFilled();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setControl(SolveControl control) {
+        this.control = control;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setStats(SolverStats stats) {
+        this.stats = stats;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean solve(char[][] board) {
+        SolveEvent event = new SolveEvent();
+        SolverStats counting = event.start(stats);
+        boolean solved = solve(board, counting);
+        event.finish(Engine.TRAIL, board, solved, counting);
+        return solved;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long countSolutions(char[][] board, long limit) {
+        SolveEvent event = new SolveEvent();
+        SolverStats counting = event.start(stats);
+        long found = countSolutions(board, limit, counting);
+        event.finish(Engine.TRAIL, board, found > 0, counting);
+        return found;
+    }
+
+    /**
+     * Solves a board in place without an event, for searches split into parts.
+     *
+     * @param board    2D char array of the Sudoku board
+     * @param counting stats to count into, may be null
+     * @return true if the board was filled with a solution
+     */
+    boolean solve(char[][] board, SolverStats counting) {
+        return run(board, 1, true, counting) == 1;
+    }
+
+    /**
+     * Counts the solutions of a board without an event, for searches split into parts.
+     *
+     * @param board    2D char array of the Sudoku board, left as given
+     * @param limit    number of solutions to stop at
+     * @param counting stats to count into, may be null
+     * @return number of solutions found, at most the limit
+     */
+    long countSolutions(char[][] board, long limit, SolverStats counting) {
+        return run(board, limit, false, counting);
+    }
+
+    /**
+     * Loads a board, searches it and puts it back unless the last solution is kept.
+     *
+     * @param board    2D char array of the Sudoku board
+     * @param limit    number of solutions to stop at
+     * @param keep     whether the solution reaching the limit stays on the board
+     * @param counting stats to count into, may be null
+     * @return number of solutions found, at most the limit
+     */
+    private long run(char[][] board, long limit, boolean keep, SolverStats counting) {
+        this.counting = counting;
+        if (!BoardSize.isWellFormed(board) || limit <= 0) {
+            return 0;
+        }
+        trail.load(board);
+        propagator.resetFilled();
+        nodes = 0;
+
+        // at most one frame per cell, plus the one finding the board full
+        int frames = trail.getSize().getCells() + 1;
+        if (frameMark.length < frames) {
+            frameMark = new int[frames];
+            frameBranch = new int[frames];
+            frameCell = new int[frames];
+            frameCandidates = new int[frames];
+        }
+
+        long found = trail.getMasks().hasClash() ? 0 : search(limit);
+        if (!keep || found < limit) {
+            trail.undo(0);
+        }
+        trail.release();
+        return found;
+    }
+
+    /**
+     * Fills the empty cells depth first, one frame per branching cell.
+     * Leaves the solution reaching the limit on the board, or the trail
+     * to be undone by the caller.
+     *
+     * @param limit number of solutions to stop at
+     * @return number of solutions found, fewer than the limit if there
+     * are no more or the search was cancelled
+     */
+    private long search(long limit) {
+        long found = 0;
+        int depth = 0;
+        if (enter(0, 0)) {
+            return 1;
+        }
+
+        while (depth >= 0) {
+            if (!control.checkpoint()) {
+                return found;
+            }
+
+            int candidates = frameCandidates[depth];
+            if (candidates == 0) {
+                // every candidate failed, go back to the previous branching cell
+                if (counting != null) {
+                    counting.backtrack();
+                }
+                trail.undo(frameMark[depth]);
+                depth--;
+                continue;
+            }
+
+            int bit = candidates & -candidates;
+            frameCandidates[depth] = candidates ^ bit;
+            trail.undo(frameBranch[depth]);
+
+            nodes++;
+            if (counting != null) {
+                counting.node(depth);
+            }
+            trail.place(frameCell[depth], bit);
+            // a full board leaves its frame without candidates, so the search goes on past it
+            if (enter(++depth, frameCell[depth - 1] + 1) && ++found == limit) {
+                return found;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Propagates and picks the cell to branch on for a new frame.
+     * A dead end leaves the frame without candidates.
+     *
+     * @param depth index of the frame
+     * @param from  cell after the previous branching cell, as row * dim + col
+     * @return true if the board is full
+     */
+    private boolean enter(int depth, int from) {
+        frameMark[depth] = trail.size();
+        frameCandidates[depth] = 0;
+        if (propagating && !propagator.propagate(trail)) {
+            if (counting != null) {
+                counting.prune();
+            }
+            return false;
+        }
+
+        int cell = order.next(trail, from);
+        if (cell == trail.getSize().getCells()) {
+            if (counting != null) {
+                counting.solution();
+            }
+            return true;
+        }
+        frameBranch[depth] = trail.size();
+        frameCell[depth] = cell;
+        frameCandidates[depth] = trail.candidates(cell);
+        if (frameCandidates[depth] == 0 && counting != null) {
+            counting.prune();
+        }
+        return false;
+    }
+}
@@ -0,0 +1,147 @@
+package solving;
+
+import java.util.Arrays;
+
+/**
+ * Policies for the order {@link SudokuConfig#getSuccessor()} tries the
+ * candidates of a cell in.
+ * <p>
+ * Orders only depend on their arguments, so a solve with the same policy
+ * and seed always explores the same tree and can be replayed.
+ *
+ * @author Anh Nguyen
+ */
+public enum ValueOrder {
+    /**
+     * Smallest digit first
+     */
+    NATURAL {
+        @Override
+        public int order(int candidates, long seed, char[][] board, CandidateMask masks, int row, int col,
+                         int[] bits) {
+            int count = 0;
+            for (; candidates != 0; candidates &= candidates - 1) {
+                bits[count++] = candidates & -candidates;
+            }
+            return count;
+        }
+    },
+
+    /**
+     * A permutation drawn from the seed of the node
+     */
+    RANDOM {
+        @Override
+        public int order(int candidates, long seed, char[][] board, CandidateMask masks, int row, int col,
+                         int[] bits) {
+            int count = NATURAL.order(candidates, seed, board, masks, row, col, bits);
+            long state = seed;
+            for (int i = count - 1; i > 0; i--) {
+                state = mix(state);
+                int j = (int) Long.remainderUnsigned(state, i + 1);
+                int swap = bits[i];
+                bits[i] = bits[j];
+                bits[j] = swap;
+            }
+            return count;
+        }
+    },
+
+    /**
+     * The digit ruling out the fewest candidates of the empty cells sharing
+     * the row, column or square first, ties broken by the smallest digit
+     */
+    LEAST_CONSTRAINING {
+        @Override
+        public int order(int candidates, long seed, char[][] board, CandidateMask masks, int row, int col,
+                         int[] bits) {
+            int count = NATURAL.order(candidates, seed, board, masks, row, col, bits);
+            // counts per candidate right after the candidates
+            Arrays.fill(bits, count, 2 * count, 0);
+            BoardSize size = masks.getSize();
+            int dim = size.getDim();
+            int box = size.getBox();
+            int top = row - row % box;
+            int left = col - col % box;
+            for (int i = 0; i < dim; i++) {
+                int r = top + i / box;
+                int c = left + i % box;
+                count(board, masks, row, i, bits, count, row, col);
+                count(board, masks, i, col, bits, count, row, col);
+                // cells of the square already seen in the row or column
+                if (r != row && c != col) {
+                    count(board, masks, r, c, bits, count, row, col);
+                }
+            }
+
+            // insertion sort, stable and at most 25 values
+            for (int i = 1; i < count; i++) {
+                int bit = bits[i];
+                int key = bits[count + i];
+                int j = i - 1;
+                while (j >= 0 && bits[count + j] > key) {
+                    bits[j + 1] = bits[j];
+                    bits[count + j + 1] = bits[count + j];
+                    j--;
+                }
+                bits[j + 1] = bit;
+                bits[count + j + 1] = key;
+            }
+            return count;
+        }
+    };
+
+    /**
+     * Orders the candidates of a cell.
+     *
+     * @param candidates mask of the candidates, see {@link CandidateMask}
+     * @param seed       seed of the node
+     * @param board      the board
+     * @param masks      occupancy of the board
+     * @param row        row of the cell
+     * @param col        column of the cell
+     * @param bits       receives the candidate bits in the order to try them,
+     *                   with room for twice the dimension of the board as scratch
+     * @return number of candidates
+     */
+    public abstract int order(int candidates, long seed, char[][] board, CandidateMask masks, int row, int col,
+                              int[] bits);
+
+    /**
+     * Derives the seed of a child node, a SplitMix64 step.
+     *
+     * @param seed seed of the parent, plus anything telling the children apart
+     * @return well mixed seed
+     */
+    public static long mix(long seed) {
+        long z = seed + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Counts the candidates an empty peer would lose for every value.
+     *
+     * @param board the board
+     * @param masks occupancy of the board
+     * @param r     row of the peer
+     * @param c     column of the peer
+     * @param bits  candidate bits of the cell, followed by the counts per candidate
+     * @param count number of candidates
+     * @param row   row of the cell
+     * @param col   column of the cell
+     */
+    private static void count(char[][] board, CandidateMask masks, int r, int c,
+                              int[] bits, int count, int row, int col) {
+        if (r == row && c == col || board[r][c] != SudokuConfig.EMPTY) {
+            return;
+        }
+        int peer = masks.candidates(r, c);
+        for (int i = 0; i < count; i++) {
+            if ((peer & bits[i]) != 0) {
+                bits[count + i]++;
+            }
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package visualization;
+
+import javafx.geometry.VPos;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.TextAlignment;
+import solving.BoardSize;
+
+/**
+ * Draws the Sudoku board on a single {@link Canvas}.
+ * <p>
+ * Cells are copied from a sprite sheet holding the empty cell and every
+ * digit, made once per board size, and only the cells marked dirty since
+ * the last {@link #paint()} are drawn again. The squares are separated by
+ * gaps no cell covers, so the dividers are only drawn with the background.
+ * Only used from the FX thread.
+ *
+ * @author Anh Nguyen
+ */
+public class BoardCanvas extends Canvas {
+    /**
+     * Pixels of a 9x9 cell, the size of the images
+     */
+    private static final int CELL = 75;
+
+    /**
+     * Pixels between two squares
+     */
+    private static final int GAP = 3;
+
+    /**
+     * Width and height of the canvas, fitting a 9x9 board
+     */
+    private static final int SIDE = 9 * CELL + 2 * GAP;
+
+    /**
+     * Empty cell followed by the digits 1 to 9
+     */
+    private final Image[] images;
+
+    /**
+     * Size of the board drawn, null before the first board
+     */
+    private BoardSize size;
+
+    /**
+     * Pixels of a cell
+     */
+    private int cell;
+
+    /**
+     * Pixels left of and above the board, centering it
+     */
+    private int margin;
+
+    /**
+     * Sprites of the empty cell and the digits 1 to dim, side by side
+     */
+    private Image sheet;
+
+    /**
+     * Value drawn or to be drawn per cell, indexed as row * dim + col
+     */
+    private char[] values = new char[0];
+
+    /**
+     * Whether a cell changed since the last paint, indexed as row * dim + col
+     */
+    private boolean[] dirty = new boolean[0];
+
+    /**
+     * The dirty cells, in the order they first changed
+     */
+    private int[] changed = new int[0];
+
+    /**
+     * Number of dirty cells
+     */
+    private int changes;
+
+    /**
+     * Whether the background has to be drawn again
+     */
+    private boolean cleared;
+
+    /**
+     * Creates the canvas.
+     *
+     * @param images images of the empty cell followed by the digits 1 to 9
+     */
+    public BoardCanvas(Image[] images) {
+        super(SIDE, SIDE);
+        this.images = images;
+    }
+
+    /**
+     * Marks the cells that differ from a board as dirty.
+     * A board of another size makes a new sprite sheet and marks every cell.
+     *
+     * @param board 2D char array of the board
+     */
+    public void setBoard(char[][] board) {
+        int dim = board.length;
+        if (size == null || size.getDim() != dim) {
+            resize(BoardSize.of(dim));
+        }
+        for (int row = 0; row < dim; row++) {
+            for (int col = 0; col < dim; col++) {
+                int i = row * dim + col;
+                if (values[i] != board[row][col]) {
+                    set(i, board[row][col]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks a cell as dirty with a new value.
+     *
+     * @param cell  cell as row * dim + col
+     * @param value new value of the cell
+     */
+    public void set(int cell, char value) {
+        if (cell >= values.length) {
+            return;
+        }
+        if (!dirty[cell]) {
+            dirty[cell] = true;
+            changed[changes++] = cell;
+        }
+        values[cell] = value;
+    }
+
+    /**
+     * Draws the dirty cells.
+     */
+    public void paint() {
+        GraphicsContext gc = getGraphicsContext2D();
+        if (cleared) {
+            gc.setFill(Color.WHITE);
+            gc.fillRect(0, 0, SIDE, SIDE);
+            gc.setFill(Color.BLACK);
+            int side = size.getDim() * cell + (size.getBox() - 1) * GAP;
+            gc.fillRect(margin, margin, side, side);
+            cleared = false;
+        }
+
+        int dim = size == null ? 0 : size.getDim();
+        for (int i = 0; i < changes; i++) {
+            int c = changed[i];
+            int row = c / dim;
+            int col = c % dim;
+            int digit = Math.max(0, BoardSize.digit(values[c]));
+            gc.drawImage(sheet, digit * cell, 0, cell, cell,
+                    x(col), x(row), cell, cell);
+            dirty[c] = false;
+        }
+        changes = 0;
+    }
+
+    /**
+     * Gets the pixel a column or row starts at.
+     *
+     * @param index column or row
+     * @return x or y of the cell
+     */
+    private int x(int index) {
+        return margin + index * cell + index / size.getBox() * GAP;
+    }
+
+    /**
+     * Sets up a new board size, its sprite sheet and cells.
+     *
+     * @param size {@link BoardSize} of the new board
+     */
+    private void resize(BoardSize size) {
+        this.size = size;
+        int dim = size.getDim();
+        cell = (SIDE - (size.getBox() - 1) * GAP) / dim;
+        margin = (SIDE - dim * cell - (size.getBox() - 1) * GAP) / 2;
+        values = new char[size.getCells()];
+        dirty = new boolean[size.getCells()];
+        changed = new int[size.getCells()];
+        for (int i = 0; i < changed.length; i++) {
+            dirty[i] = true;
+            changed[i] = i;
+        }
+        changes = changed.length;
+        cleared = true;
+        sheet = makeSheet();
+    }
+
+    /**
+     * Draws the sprite sheet of the current size. The images are used up
+     * to 9x9, bigger boards draw their symbols on the empty cell.
+     *
+     * @return image of the empty cell and the digits 1 to dim, side by side
+     */
+    private Image makeSheet() {
+        int dim = size.getDim();
+        Canvas sprites = new Canvas((dim + 1) * cell, cell);
+        GraphicsContext gc = sprites.getGraphicsContext2D();
+        gc.setFill(Color.BLACK);
+        gc.setFont(Font.font(null, FontWeight.BOLD, cell * 0.6));
+        gc.setTextAlign(TextAlignment.CENTER);
+        gc.setTextBaseline(VPos.CENTER);
+        for (int digit = 0; digit <= dim; digit++) {
+            gc.drawImage(images[0], digit * cell, 0, cell, cell);
+            if (digit == 0) {
+                continue;
+            }
+            if (dim < images.length) {
+                gc.drawImage(images[digit], digit * cell, 0, cell, cell);
+            } else {
+                gc.fillText(String.valueOf(BoardSize.symbol(digit)), digit * cell + cell / 2.0, cell / 2.0);
+            }
+        }
+        return sprites.snapshot(new SnapshotParameters(), null);
+    }
+}
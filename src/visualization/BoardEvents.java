@@ -0,0 +1,121 @@
+package visualization;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded lock-free queue of cell changes, from the solving thread to
+ * the FX thread.
+ * <p>
+ * One thread offers and one thread drains. A change offered to a full
+ * queue is dropped and the queue is marked invalid instead, telling the
+ * view to redraw every cell, so the solver never waits for the view.
+ *
+ * @author Anh Nguyen
+ */
+public class BoardEvents {
+
+    /**
+     * Receives the changes of a drain.
+     */
+    public interface Sink {
+
+        /**
+         * Called for every change, oldest first.
+         *
+         * @param cell  cell as row * dim + col
+         * @param value new value of the cell
+         */
+        void changed(int cell, char value);
+    }
+
+    /**
+     * Changes packed as cell << 16 | value, indexed by sequence & {@link #mask}
+     */
+    private final long[] ring;
+
+    /**
+     * Capacity - 1, the capacity is a power of two
+     */
+    private final int mask;
+
+    /**
+     * Sequence of the next change to drain, written by the draining thread
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * Sequence of the next change to offer, written by the offering thread
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * Set when changes were dropped or the whole board changed
+     */
+    private volatile boolean invalid;
+
+    /**
+     * Creates a queue.
+     *
+     * @param capacity number of changes held, rounded up to a power of two
+     */
+    public BoardEvents(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        ring = new long[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Offers a change, from the offering thread.
+     *
+     * @param cell  cell as row * dim + col
+     * @param value new value of the cell
+     * @return false if the queue was full and got invalidated instead
+     */
+    public boolean offer(int cell, char value) {
+        long t = tail.get();
+        if (t - head.get() == ring.length) {
+            invalid = true;
+            return false;
+        }
+        ring[(int) t & mask] = (long) cell << 16 | value;
+        // publishes the slot before the new tail
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * Marks the whole board as changed, from any thread.
+     */
+    public void invalidate() {
+        invalid = true;
+    }
+
+    /**
+     * Drains the changes offered so far, from the draining thread.
+     *
+     * @param sink receives the changes
+     * @return true if the whole board has to be redrawn as well
+     */
+    public boolean drain(Sink sink) {
+        boolean redraw = invalid;
+        if (redraw) {
+            invalid = false;
+        }
+        long h = head.get();
+        long t = tail.get();
+        for (; h < t; h++) {
+            long change = ring[(int) h & mask];
+            sink.changed((int) (change >>> 16), (char) change);
+        }
+        head.lazySet(t);
+        return redraw;
+    }
+
+    /**
+     * Drops every change, from the draining thread.
+     */
+    public void clear() {
+        head.lazySet(tail.get());
+        invalid = false;
+    }
+}
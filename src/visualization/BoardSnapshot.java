@@ -0,0 +1,116 @@
+package visualization;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Board written by the solving thread and sampled by the FX thread,
+ * guarded by a sequence lock.
+ * <p>
+ * A writer makes the sequence odd, writes the cells and makes it even
+ * again, never waiting for readers. A reader copies the cells and retries
+ * when the sequence was odd or moved meanwhile, so it always gets a board
+ * that was actually written. Writers exclude each other, which costs
+ * nothing while only the solving thread writes.
+ *
+ * @author Anh Nguyen
+ */
+public class BoardSnapshot {
+
+    /**
+     * Cells indexed as row * dim + col
+     */
+    private char[] cells = new char[0];
+
+    /**
+     * Number of rows and columns
+     */
+    private volatile int dim;
+
+    /**
+     * Odd while the cells are written
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Replaces the whole board.
+     *
+     * @param board 2D char array of the board
+     */
+    public synchronized void publish(char[][] board) {
+        long s = begin();
+        if (cells.length != board.length * board.length) {
+            cells = new char[board.length * board.length];
+        }
+        for (int row = 0; row < board.length; row++) {
+            System.arraycopy(board[row], 0, cells, row * board.length, board.length);
+        }
+        dim = board.length;
+        sequence.setRelease(s + 2);
+    }
+
+    /**
+     * Changes a cell.
+     *
+     * @param cell  cell as row * dim + col
+     * @param value new value of the cell
+     */
+    public synchronized void set(int cell, char value) {
+        if (cell >= cells.length) {
+            return;
+        }
+        long s = begin();
+        cells[cell] = value;
+        sequence.setRelease(s + 2);
+    }
+
+    /**
+     * Gets the number of rows and columns of the last board published.
+     *
+     * @return dimension, 0 before the first board
+     */
+    public int getDim() {
+        return dim;
+    }
+
+    /**
+     * Copies the board, from any thread.
+     *
+     * @param board 2D char array to copy into, of {@link #getDim()} rows and columns
+     * @return false if the board changed size, the array is then left as is
+     */
+    public boolean read(char[][] board) {
+        while (true) {
+            long s = sequence.getAcquire();
+            if ((s & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            char[] cells = this.cells;
+            if (cells.length != board.length * board.length) {
+                return false;
+            }
+            for (int row = 0; row < board.length; row++) {
+                System.arraycopy(cells, row * board.length, board[row], 0, board.length);
+            }
+            // the copy must not be ordered after the check
+            VarHandle.loadLoadFence();
+            if (sequence.get() == s) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Makes the sequence odd before writing.
+     *
+     * @return the even sequence before
+     */
+    private long begin() {
+        long s = sequence.get();
+        sequence.setOpaque(s + 1);
+        // the cells must not be written before the sequence
+        VarHandle.storeStoreFence();
+        return s;
+    }
+}
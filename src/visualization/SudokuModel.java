@@ -1,10 +1,20 @@
 package visualization;
 
 import solving.Configuration;
+import solving.Engine;
+import solving.SolutionCache;
+import solving.SolveControl;
+import solving.SolveEvent;
+import solving.SolverStats;
 import solving.SudokuConfig;
+import solving.SudokuSolver;
+import solving.ValueOrder;
 
 import java.io.IOException;
-import java.util.Optional;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * The model in MVC.
@@ -14,15 +24,69 @@ import java.util.Optional;
  * @author Anh Nguyen
  */
 public class SudokuModel implements Runnable {
+    /** Cell changes held for the view between two frames */
+    private static final int EVENTS = 1 << 12;
+
+    /** Checkpoints between two boards published by a live engine, far more boards than frames */
+    private static final int PUBLISH_EVERY = 256;
+
     /** Current configuration of the Sudoku board */
     private SudokuConfig config;
 
-    /** The front (View) to perform update calls */
-    private SudokuVisualize front;
+    /** Cell changes for the view, published by the solving thread */
+    private final BoardEvents events = new BoardEvents(EVENTS);
+
+    /** Board sampled by the view, kept up to date while showing */
+    private final BoardSnapshot snapshot = new BoardSnapshot();
 
     /** 2D char array of sudoku board for resetting board purposes */
     private char[][] board;
 
+    /** Engine used by {@link #solve()} */
+    private Engine engine = Engine.BACKTRACKING;
+
+    /** Pauses, resumes and cancels the running solve */
+    private final SolveControl control = new LiveControl();
+
+    /** Order the backtracking tries the candidates of a cell in */
+    private ValueOrder valueOrder = ValueOrder.NATURAL;
+
+    /** Seed of the last or next backtracking solve */
+    private long seed;
+
+    /** Whether {@link #seed} was set, otherwise every solve draws a new one */
+    private boolean seeded;
+
+    /** Stats of the solves, null to count nothing */
+    private SolverStats stats;
+
+    /** Stats of the running backtracking, null when nothing counts */
+    private SolverStats counting;
+
+    /** Solutions of earlier solves, null to always solve */
+    private SolutionCache cache;
+
+    /** Whether solves skip showing their steps */
+    private volatile boolean maxSpeed;
+
+    /** Solution the backtracking stopped at */
+    private SudokuConfig solution;
+
+    /** Whether a solve is running, claimed on the thread that asks for it */
+    private final AtomicBoolean solving = new AtomicBoolean();
+
+    /** Thread of the running solve if it fills the board in place without publishing changes, null otherwise */
+    private volatile Thread liveThread;
+
+    /** Board the live solve fills, only read on {@link #liveThread} */
+    private char[][] liveBoard;
+
+    /** Checkpoints of the live solve left before it publishes {@link #liveBoard} again */
+    private int untilPublish;
+
+    /** Successors left to try at each depth of the backtracking, one level per cell */
+    private Iterator<Configuration>[] stack = newStack(SudokuConfig.DIM * SudokuConfig.DIM + 1);
+
     /**
      * Instantiates a new Sudoku model with a given filename.
      *
@@ -32,6 +96,7 @@ public class SudokuModel implements Runnable {
         try {
             this.config = new SudokuConfig(filename);
             this.board = config.getBoard();
+            snapshot.publish(board);
         } catch (IOException ioe) {
             System.err.println(ioe.getMessage());
         }
@@ -43,15 +108,112 @@ public class SudokuModel implements Runnable {
     public SudokuModel() {
         this.config = new SudokuConfig();
         this.board = config.getBoard();
+        snapshot.publish(board);
     }
 
     /**
-     * Adds the front to the model.
+     * Gets the cell changes published for the view.
      *
-     * @param front {@link SudokuVisualize}
+     * @return {@link BoardEvents}
      */
-    public void addFront(SudokuVisualize front) {
-        this.front = front;
+    public BoardEvents getEvents() {
+        return events;
+    }
+
+    /**
+     * Gets the board the view samples while solving.
+     *
+     * @return {@link BoardSnapshot}
+     */
+    public BoardSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Sets whether the next solves skip showing their steps, so only the
+     * final board reaches the view.
+     *
+     * @param maxSpeed true to solve at full speed
+     */
+    public void setMaxSpeed(boolean maxSpeed) {
+        this.maxSpeed = maxSpeed;
+    }
+
+    /**
+     * Checks whether a solve is running.
+     *
+     * @return true while solving
+     */
+    public boolean isSolving() {
+        return solving.get();
+    }
+
+    /**
+     * Checks whether the running solve fills the board in place without
+     * publishing its changes, only a whole board every few checkpoints to
+     * the snapshot, so the view has to sample every cell.
+     *
+     * @return true while such a solve runs
+     */
+    public boolean isLive() {
+        return liveThread != null;
+    }
+
+    /**
+     * Sets the engine used to solve the board.
+     *
+     * @param engine {@link Engine}
+     */
+    public void setEngine(Engine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Sets the order the backtracking tries the candidates of a cell in.
+     * The other engines always try the smallest digit first.
+     *
+     * @param valueOrder {@link ValueOrder}
+     */
+    public void setValueOrder(ValueOrder valueOrder) {
+        this.valueOrder = valueOrder;
+    }
+
+    /**
+     * Sets the seed of the next backtracking solves, to replay a solve exactly.
+     *
+     * @param seed seed, see {@link #getSeed()}
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+        this.seeded = true;
+    }
+
+    /**
+     * Gets the seed of the last backtracking solve, or of the next one once set.
+     *
+     * @return seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Sets the stats counted by the next solves, with any engine.
+     *
+     * @param stats {@link SolverStats}, null to count nothing
+     */
+    public void setStats(SolverStats stats) {
+        this.stats = stats;
+    }
+
+    /**
+     * Sets the cache looked up before solving and filled after, with any engine.
+     * A puzzle found in it is shown solved right away.
+     *
+     * @param cache {@link SolutionCache}, null to always solve
+     */
+    public void setCache(SolutionCache cache) {
+        this.cache = cache;
     }
 
     /**
@@ -66,64 +228,284 @@ public class SudokuModel implements Runnable {
 
     /**
      * Backtracking algorithm that solves the Sudoku board.
-     * Also calls the update method while passing in true to inform
-     * the view that the puzzle is solved.
-     *
-     * @param config current configuration
-     * @return Optional of the config or empty (to avoid null)
-     */
-    private Optional<Configuration> solve(Configuration config) {
-        if (config.isGoal()) {
-            updateBoard(true);
-            return Optional.of(config);
-        } else {
-            for (Configuration c : config.getSuccessor()) {
+     * Iterates over an explicit stack of successors instead of recursing,
+     * checking {@link #control} between nodes.
+     * While showing, publishes every cell it fills or clears to {@link #events}.
+     *
+     * @param root    starting configuration
+     * @param limit   number of solutions to stop at
+     * @param showing whether the view follows the search
+     * @return number of solutions found, fewer than the limit if there
+     * are no more or the search was cancelled
+     */
+    private long search(Configuration root, long limit, boolean showing) {
+        if (root.isGoal()) {
+            if (counting != null) {
+                counting.solution();
+            }
+            solution = (SudokuConfig) root;
+            return 1;
+        }
+
+        int cells = ((SudokuConfig) root).getSize().getCells();
+        if (stack.length < cells + 1) {
+            stack = newStack(cells + 1);
+        }
+
+        long found = 0;
+        int depth = 0;
+        stack[0] = root.getSuccessor().iterator();
+        try {
+            while (depth >= 0) {
+                if (!control.checkpoint()) {
+                    return found;
+                }
+                if (!stack[depth].hasNext()) {
+                    if (counting != null) {
+                        counting.backtrack();
+                    }
+                    if (showing) {
+                        publish(depth, SudokuConfig.EMPTY);
+                    }
+                    depth--;
+                    continue;
+                }
+
+                Configuration c = stack[depth].next();
                 if (c.isValid()) {
-                    SudokuConfig tmp = (SudokuConfig) c;
-                    this.config = tmp.copyConfig(tmp);  // for visualization
-                    Optional<Configuration> sol = solve(c);
-                    if (sol.isPresent()) {
-                        return sol;
+                    if (counting != null) {
+                        counting.node(depth);
+                    }
+                    if (showing) {
+                        publish(depth, ((SudokuConfig) c).getBoard()[depth / board.length][depth % board.length]);
                     }
+                    if (c.isGoal()) {
+                        if (counting != null) {
+                            counting.solution();
+                        }
+                        if (++found == limit) {
+                            solution = (SudokuConfig) c;
+                            return found;
+                        }
+                        continue;
+                    }
+                    stack[++depth] = c.getSuccessor().iterator();
+                } else if (counting != null) {
+                    counting.prune();
                 }
             }
+            return found;
+        } finally {
+            Arrays.fill(stack, null);
         }
-        return Optional.empty();
+    }
+
+    /**
+     * Publishes the change of a cell the puzzle leaves empty to the
+     * snapshot and the events.
+     * The successors at a depth all fill the cell of that index.
+     *
+     * @param cell  cell as row * dim + col
+     * @param value new value of the cell
+     */
+    private void publish(int cell, char value) {
+        if (board[cell / board.length][cell % board.length] == SudokuConfig.EMPTY) {
+            snapshot.set(cell, value);
+            events.offer(cell, value);
+        }
+    }
+
+    /**
+     * Creates the stack of successor iterators.
+     *
+     * @param depth number of levels
+     * @return an empty stack
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Iterator<Configuration>[] newStack(int depth) {
+        return new Iterator[depth];
     }
 
     /**
      * Public solve method.
+     * Engines other than {@link Engine#BACKTRACKING} fill a single copy
+     * of the board in place, published to the snapshot at their
+     * checkpoints unless at max speed. A cancelled solve leaves the
+     * puzzle as loaded.
+     *
+     * @throws IllegalStateException if a solve is already running
      */
     public void solve() {
-        solve(config);
+        if (!claim()) {
+            throw new IllegalStateException("A solve is already running");
+        }
+        solveControlled();
     }
 
     /**
-     * Update method that calls the update function in the view
-     * while passing in either true or false representing the
-     * solving status of the Sudoku configuration.
+     * Starts solving on a daemon thread of its own. The solve is claimed
+     * and the control reset here, on the caller's thread, so a second
+     * start can't slip in before the thread runs and a {@link #cancel()}
+     * issued meanwhile isn't lost.
      *
-     * @param solved solved or not
+     * @return the solving thread, null if a solve is already running
      */
-    private void updateBoard(boolean solved) {
-        if (front != null) {
-            front.update(solved);
+    public Thread start() {
+        if (!claim()) {
+            return null;
         }
+        Thread thread = new Thread(this::solveControlled, "solver");
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
     }
 
     /**
-     * Loads a new Sudoku configuration from a file.
+     * Claims the solve and resets the control for it.
      *
-     * @param filename filename
+     * @return false if a solve is already running
+     */
+    private boolean claim() {
+        if (!solving.compareAndSet(false, true)) {
+            return false;
+        }
+        control.reset();
+        return true;
+    }
+
+    /**
+     * Solves under the control as it is, claimed by whoever started the
+     * solve and released when done.
      */
-    public void load(String filename) {
+    private void solveControlled() {
+        boolean solved = false;
         try {
-            config = new SudokuConfig(filename);
-            board = config.getBoard();
-            updateBoard(false);
-        } catch (IOException ioe) {
-            System.err.println(ioe.getMessage());
+            SudokuSolver solver = engine.create();
+            SudokuConfig cached = new SudokuConfig(board);
+            if (cache != null && cache.lookup(cached.getBoard())) {
+                config = new SudokuConfig(cached.getBoard());
+                snapshot.publish(config.getBoard());
+                solved = true;
+                return;
+            }
+
+            if (solver == null) {
+                solved = solveBacktracking();
+                if (solved) {
+                    snapshot.publish(config.getBoard());
+                }
+            } else {
+                config = config.copyConfig(config);
+                if (!maxSpeed) {
+                    liveBoard = config.getBoard();
+                    untilPublish = PUBLISH_EVERY;
+                    liveThread = Thread.currentThread();
+                }
+                solver.setControl(control);
+                solver.setStats(stats);
+                solved = solver.solve(config.getBoard());
+                snapshot.publish(config.getBoard());
+            }
+            if (solved && cache != null) {
+                cache.store(board, config.getBoard());
+            }
+        } finally {
+            liveThread = null;
+            liveBoard = null;
+            if (!solved && control.isCancelled()) {
+                // neither the cells the search published nor a half filled board stay
+                config = new SudokuConfig(board);
+                snapshot.publish(board);
+            }
+            events.invalidate();
+            solving.set(false);
+        }
+    }
+
+    /**
+     * Solves the board with {@link #search}, shown to the view unless at
+     * max speed. A cancelled solve leaves the board as it was.
+     *
+     * @return true if solved, the solution is then the configuration
+     */
+    private boolean solveBacktracking() {
+        if (!seeded) {
+            seed = ThreadLocalRandom.current().nextLong();
+        }
+        config.setValueOrder(valueOrder, seed);
+        SolveEvent event = new SolveEvent();
+        counting = event.start(stats);
+        // the search moves the cursor of its root, a copy keeps the board solvable again after a cancel
+        boolean solved = search(config.copyConfig(config), 1, !maxSpeed) == 1;
+        if (solved) {
+            config = solution;
+        }
+        solution = null;
+        event.finish(engine, config.getBoard(), solved, counting);
+        counting = null;
+        return solved;
+    }
+
+    /**
+     * Counts the solutions of the loaded puzzle with the selected engine,
+     * stopping as soon as the limit is reached. The view is not updated.
+     *
+     * @param limit number of solutions to stop at, 2 to check that the puzzle is well-posed
+     * @return number of solutions found, at most the limit
+     */
+    public long countSolutions(long limit) {
+        control.reset();
+        SudokuConfig puzzle = new SudokuConfig(board);
+        SudokuSolver solver = engine.create();
+        if (solver != null) {
+            solver.setControl(control);
+            solver.setStats(stats);
+            return solver.countSolutions(puzzle.getBoard(), limit);
         }
+
+        puzzle.setValueOrder(valueOrder, seed);
+        SolveEvent event = new SolveEvent();
+        counting = event.start(stats);
+        long found = limit > 0 ? search(puzzle, limit, false) : 0;
+        solution = null;
+        event.finish(engine, puzzle.getBoard(), found > 0, counting);
+        counting = null;
+        return found;
+    }
+
+    /**
+     * Pauses the running solve until {@link #resume()} or {@link #cancel()}.
+     */
+    public void pause() {
+        control.pause();
+    }
+
+    /**
+     * Resumes a paused solve.
+     */
+    public void resume() {
+        control.resume();
+    }
+
+    /**
+     * Cancels the running solve, which then returns without a solution.
+     */
+    public void cancel() {
+        control.cancel();
+    }
+
+    /**
+     * Loads a new Sudoku configuration from a file.
+     * The board stays as it was if the file can't be loaded.
+     *
+     * @param filename filename
+     * @throws IOException if the file doesn't exist, holds no puzzle or a malformed one
+     */
+    public void load(String filename) throws IOException {
+        config = new SudokuConfig(filename);
+        board = config.getBoard();
+        snapshot.publish(board);
+        events.invalidate();
     }
 
     /**
@@ -136,7 +518,8 @@ public class SudokuModel implements Runnable {
     public void load(char[][] customNumbers) {
         config = new SudokuConfig(customNumbers);
         board = config.getBoard();
-        updateBoard(false);
+        snapshot.publish(board);
+        events.invalidate();
     }
 
     /**
@@ -144,19 +527,36 @@ public class SudokuModel implements Runnable {
      */
     public void reset() {
         config = new SudokuConfig(board);
-        updateBoard(false);
+        snapshot.publish(board);
+        events.invalidate();
+    }
+
+    /**
+     * Control of the solves that also publishes the board of a live solve,
+     * on the thread filling it, so the view never reads a board being
+     * written. Threads an engine forks never publish.
+     */
+    private class LiveControl extends SolveControl {
+
+        /**
+         * {@inheritDoc}
+         *
+         * @return false if the search has to stop
+         */
+        @Override
+        public boolean checkpoint() {
+            if (liveThread == Thread.currentThread() && --untilPublish == 0) {
+                untilPublish = PUBLISH_EVERY;
+                snapshot.publish(liveBoard);
+            }
+            return super.checkpoint();
+        }
     }
 
     /**
-     * When an object implementing interface {@code Runnable} is used
-     * to create a thread, starting the thread causes the object's
-     * {@code run} method to be called in that separately executing
-     * thread.
-     * <p>
-     * The general contract of the method {@code run} is that it may
-     * take any action whatsoever.
+     * Solves on the current thread, as {@link #solve()} does.
      *
-     * @see Thread#run()
+     * @throws IllegalStateException if a solve is already running
      */
     @Override
     public void run() {
@@ -1,12 +1,12 @@
 package visualization;
 
+import javafx.animation.AnimationTimer;
 import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.image.Image;
-import javafx.scene.image.ImageView;
 import javafx.scene.layout.*;
 
 import javafx.application.Application;
@@ -14,13 +14,19 @@ import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import solving.BoardSize;
+import solving.Engine;
+import solving.Grader;
+import solving.PuzzleFormatException;
+import solving.PuzzleGenerator;
+import solving.PuzzleParser;
+import solving.SolutionCache;
 import solving.SudokuConfig;
 
 import java.io.*;
 import java.nio.file.Paths;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
 
 
 /**
@@ -86,29 +92,48 @@ public class SudokuVisualize extends Application {
     private final Image logo = new Image(Objects.requireNonNull(getClass().getResourceAsStream("resources/logo.png")));
 
     /**
-     * Image of a vertical divider (3x3 regions)
+     * The board, drawn from the changes of the model
      */
-    private final Image VDivider = new Image(Objects.requireNonNull(getClass().getResourceAsStream("resources/vertical.png")));
+    private BoardCanvas canvas;
 
     /**
-     * Image of a horizontal divider (3x3 regions)
+     * Solutions of the puzzles solved at max speed
      */
-    private final Image HDivider = new Image(Objects.requireNonNull(getClass().getResourceAsStream("resources/horizontal.png")));
+    private final SolutionCache cache = new SolutionCache(1000);
 
     /**
-     * HashMap that maps the numbers to their respective Images
+     * Rates the board shown
      */
-    private final HashMap<Integer, Image> graphicMap = new HashMap<>();
+    private final Grader grader = new Grader();
 
     /**
-     * List of the individual cells of the board
+     * Copy of the board sampled from the model, sized to the board
      */
-    private final List<ImageView> cellList = new LinkedList<>();
+    private char[][] sampled = new char[0][0];
 
     /**
-     * Value that indicates the solving of the model
+     * Nanoseconds between two frames, caps the frame rate at 30 fps
      */
-    private boolean solving;
+    private static final long FRAME = 1_000_000_000L / 30;
+
+    /**
+     * Draws the changes of the model once per pulse, at most once per {@link #FRAME}
+     */
+    private final AnimationTimer renderer = new AnimationTimer() {
+        /**
+         * Time of the last frame drawn
+         */
+        private long last;
+
+        @Override
+        public void handle(long now) {
+            if (now - last < FRAME) {
+                return;
+            }
+            last = now;
+            render();
+        }
+    };
 
     /**
      * Status text to be updated in different functions
@@ -152,75 +177,27 @@ public class SudokuVisualize extends Application {
             setStatus("Loaded file: " + filenameArray[filenameArray.length - 1]);
 
             model = new SudokuModel(filename);
-            model.addFront(this);
         } else {
             model = new SudokuModel();
-            model.addFront(this);
             setStatus("No file found, empty board generated.");
         }
-        makeGraphicMap();
     }
 
     public void setStatus(String msg) {
         statusLabel.setText(msg);
     }
 
-    /**
-     * Creates a map that maps the numbers to the respective images.
-     */
-    private void makeGraphicMap() {
-        graphicMap.put(0, none);
-        graphicMap.put(1, one);
-        graphicMap.put(2, two);
-        graphicMap.put(3, three);
-        graphicMap.put(4, four);
-        graphicMap.put(5, five);
-        graphicMap.put(6, six);
-        graphicMap.put(7, seven);
-        graphicMap.put(8, eight);
-        graphicMap.put(9, nine);
-    }
-
-    /**
-     * Sets the image of a cell in the Sudoku board
-     *
-     * @param cell the image to be set
-     * @param row  row of the cell
-     * @param col  column of the cell
-     */
-    private void setCellGraphic(ImageView cell, int row, int col) {
-        char[][] board = model.getBoard();
-        cell.setImage(graphicMap.get(Character.getNumericValue(board[row][col])));
-    }
-
     /**
      * Creates the grid representing the Sudoku board
      *
      * @param bp BorderPane for the grid to be added on
      */
     private void makeGrid(BorderPane bp) {
-        GridPane grid = new GridPane();
-        grid.setPadding(new Insets(0, 0, 0, 10));
-
-        for (int row = 0; row < SudokuConfig.DIM; row++) {
-            for (int col = 0; col < SudokuConfig.DIM; col++) {
-                ImageView cell = new ImageView();
-                setCellGraphic(cell, row, col);
+        canvas = new BoardCanvas(new Image[]{none, one, two, three, four, five, six, seven, eight, nine});
+        update();
 
-                grid.add(cell, col, row);
-                cellList.add(cell);
-
-                if (row != 0 && row % 3 == 0) {
-                    // pad bottom to divide 3x3 squares (row)
-                    grid.add(new HBox(new ImageView(HDivider)), col, row);
-                }
-                if (col != 0 && col % 3 == 0) {
-                    grid.add(new VBox(new ImageView(VDivider)), col, row);
-                }
-            }
-        }
-
-        bp.setCenter(grid);
+        BorderPane.setMargin(canvas, new Insets(0, 0, 0, 10));
+        bp.setCenter(canvas);
     }
 
     /**
@@ -288,7 +265,7 @@ public class SudokuVisualize extends Application {
         radioRandom.setFont(new Font(20));
         radioRandom.setToggleGroup(group);
 
-        Label fieldTitle = new Label("Numbers of cells to be randomly filled (Max: 81):");
+        Label fieldTitle = new Label("Number of clues, 0 for as few as possible (Max: 81):");
         fieldTitle.setFont(new Font(20));
         fieldTitle.setPadding(new Insets(0, 0, 50, 0));
 
@@ -337,39 +314,37 @@ public class SudokuVisualize extends Application {
         randomButton.setDisable(true);
         randomButton.setOnAction(e -> {
             try {
-                int numDelete = Integer.parseInt(numOfRandom.getText());
-                if (numDelete <= SudokuConfig.DIM * SudokuConfig.DIM) {
-                    SudokuModel solvedModel = new SudokuModel();
-                    solvedModel.solve();
-                    char[][] solvedBoard = solvedModel.getBoard();
-
-                    Random rand = new Random();
-
-                    // replace numDelete numbers on the board
-                    for (int i = 0; i < SudokuConfig.DIM * SudokuConfig.DIM - numDelete; i++) {
-                        while (true) {
-                            int row = rand.nextInt(SudokuConfig.DIM);
-                            int col = rand.nextInt(SudokuConfig.DIM);
-                            if (solvedBoard[row][col] != '0') {
-                                solvedBoard[row][col] = '0';
-                                break;
+                int numClues = Integer.parseInt(numOfRandom.getText());
+                if (numClues <= SudokuConfig.DIM * SudokuConfig.DIM) {
+                    PuzzleGenerator generator = new PuzzleGenerator(BoardSize.NINE);
+                    generator.setClues(numClues);
+
+                    // generates off the FX thread, the puzzle always has a unique solution
+                    randomButton.setDisable(true);
+                    CompletableFuture.supplyAsync(generator::generate).whenComplete((puzzle, thrown) -> Platform.runLater(() -> {
+                        if (thrown != null) {
+                            Throwable cause = thrown.getCause() != null ? thrown.getCause() : thrown;
+                            errorPopUp("Could not generate a puzzle: " + cause.getMessage());
+                        } else {
+                            // setting text of TextFields on the grid
+                            int tfLoc = 0;
+                            for (char[] row : puzzle) {
+                                for (char c : row) {
+                                    String val;
+                                    val = c != SudokuConfig.EMPTY ? String.valueOf(c) : "";
+                                    textFieldList.get(tfLoc).setText(val);
+                                    tfLoc++;
+                                }
                             }
                         }
-                    }
-
-                    // setting text of TextFields on the grid
-                    int tfLoc = 0;
-                    for (char[] row : solvedBoard) {
-                        for (char c : row) {
-                            String val;
-                            val = c != '0' ? String.valueOf(c) : "";
-                            textFieldList.get(tfLoc).setText(val);
-                            tfLoc++;
-                        }
-                    }
+                        randomButton.setDisable(false);
+                    }));
                 }
             } catch (NumberFormatException nfe) {
                 errorPopUp("Needs to be a number!");
+            } catch (IllegalArgumentException iae) {
+                // a negative number of clues
+                errorPopUp(iae.getMessage());
             }
         });
 
@@ -400,53 +375,23 @@ public class SudokuVisualize extends Application {
         Button okCustom = new Button("OK");
         okCustom.setFont(new Font(20));
         okCustom.setOnAction(e -> {
-            boolean error = false;
-
-            List<String> customNumbers = new LinkedList<>();
+            char[][] custom;
             if (radioPaste.isSelected()) {
-                customNumbers = Arrays.asList(customBoard.getText().split("\n"));
                 try {
-                    for (int i = 0; i < SudokuConfig.DIM; i++) {
-                        String row = customNumbers.get(i);
-
-                        // if the pasted has periods to separate columns
-                        if (row.contains(".")) {
-                            row = row.replaceAll("\\.", "0");
-                        }
-
-                        Pattern pattern = Pattern.compile("[^\\d]");
-                        Matcher matcher = pattern.matcher(row);
-                        long matches = matcher.results().count();
-                        if (matches != 0) {
-                            errorPopUp("Sudoku does not allow characters!");
-                            error = true;
-                            break;
-                        }
-
-                        if (row.length() < SudokuConfig.DIM) {
-                            while (row.length() != SudokuConfig.DIM) {
-                                customNumbers.set(i, row + "0");
-                                row = customNumbers.get(i);
-                            }
-                        } else if (row.length() > SudokuConfig.DIM) {
-                            errorPopUp("Too many numbers on row " + i + "!");
-                            error = true;
-                            break;
-                        }
-                    }
-                } catch (IndexOutOfBoundsException ioobe) {
-                    errorPopUp("Not enough number of rows");
-                    error = true;
+                    custom = PuzzleParser.parse(customBoard.getText());
+                } catch (PuzzleFormatException pfe) {
+                    errorPopUp(pfe.getMessage());
+                    custom = null;
                 }
             } else {
-                error = extractTextFields(textFieldList, customNumbers);
-                if (error) {
+                custom = extractTextFields(textFieldList);
+                if (custom == null) {
                     errorPopUp("Sudoku does not allow characters!");
                 }
             }
             // loads the given board
-            if (!error) {
-                model.load(listTo2DArray(customNumbers));
+            if (custom != null) {
+                model.load(custom);
                 setStatus("Custom Sudoku board generated");
                 customizeWindow.close();
             }
@@ -473,10 +418,9 @@ public class SudokuVisualize extends Application {
             //Show save file dialog
             File file = fc.showSaveDialog(customizeWindow);
             if (file != null) {
-                List<String> customNumbers = new LinkedList<>();
-                boolean error = extractTextFields(textFieldList, customNumbers);
-                if (!error) {
-                    saveBoard(listTo2DArray(customNumbers), file);
+                char[][] custom = extractTextFields(textFieldList);
+                if (custom != null) {
+                    saveBoard(custom, file);
                 } else {
                     errorPopUp("Sudoku does not allow characters!\nFile was not saved.");
                 }
@@ -504,28 +448,25 @@ public class SudokuVisualize extends Application {
     }
 
     /**
-     * Extract the text from all TextFields of the grid to a
-     * List of Strings of each row (i.e length of list will be {@link SudokuConfig#DIM}
+     * Extracts the cells from all TextFields of the grid, an empty
+     * TextField being an empty cell.
      *
-     * @param textFieldList List of all TextFields
-     * @param customNumbers List of String row representation
-     * @return true if there were characters instead of numbers in a cell else false.
+     * @param textFieldList List of all TextFields, row by row
+     * @return 2D char array of the board, null if there were characters instead of numbers
      */
-    private boolean extractTextFields(LinkedList<TextField> textFieldList, List<String> customNumbers) {
-        StringBuilder row = new StringBuilder();
+    private char[][] extractTextFields(LinkedList<TextField> textFieldList) {
+        char[][] custom = new char[SudokuConfig.DIM][SudokuConfig.DIM];
+        int i = 0;
         for (TextField tf : textFieldList) {
-            if (tf.getText().matches("[^\\d]")) {
-                return true;
-            }
-            row.append(tf.getText().matches("\\d") ? tf.getText() : "0");
-
-            // adds to list of string when row has SudokuConfig.DIM numbers
-            if (row.length() == SudokuConfig.DIM) {
-                customNumbers.add(row.toString());
-                row = new StringBuilder();
+            String text = tf.getText();
+            char cell = text.length() == 1 ? text.charAt(0) : SudokuConfig.EMPTY;
+            if (cell < '0' || cell > '9') {
+                return null;
             }
+            custom[i / SudokuConfig.DIM][i % SudokuConfig.DIM] = cell;
+            i++;
         }
-        return false;
+        return custom;
     }
 
     /**
@@ -602,22 +543,6 @@ public class SudokuVisualize extends Application {
         }
     }
 
-    /**
-     * Useful method to convert a list of String to a 2D char array.
-     *
-     * @param list given list
-     * @return 2D char array
-     */
-    private char[][] listTo2DArray(List<String> list) {
-        char[][] result = new char[SudokuConfig.DIM][SudokuConfig.DIM];
-
-        for (int i = 0; i < result.length; i++) {
-            result[i] = list.get(i).toCharArray();
-        }
-
-        return result;
-    }
-
     /**
      * Starts the JavaFX Application.
      * Creates the SudokuSolver 3000 GUI.
@@ -666,19 +591,19 @@ public class SudokuVisualize extends Application {
             fc.setInitialDirectory(new File(currentPath));
             File file = fc.showOpenDialog(stage);
             if (file != null) {
-                model.load("data/" + file.getName());
-                setStatus("Loaded file: " + file.getName());
+                try {
+                    model.load("data/" + file.getName());
+                    setStatus("Loaded file: " + file.getName());
+                } catch (IOException ioe) {
+                    errorPopUp(ioe.getMessage());
+                }
             }
-            this.solving = true;
         });
 
         Button reset = new Button("Reset puzzle");
         reset.setFont(new Font(20));
 
-        reset.setOnAction(e -> {
-            model.reset();
-            this.solving = true;
-        });
+        reset.setOnAction(e -> model.reset());
 
         hb.getChildren().addAll(load, reset);
         border.setLeft(leftPanel);
@@ -690,26 +615,52 @@ public class SudokuVisualize extends Application {
         Button visualize = new Button("Visualize!");
         visualize.setFont(new Font(20));
 
-        visualize.setOnAction(e -> {
-            Thread thread = new Thread(() -> {
-                Thread t = new Thread(model);
-                t.start();
-                while (solving) {
-                    try {
-                        Thread.sleep(1);
-                    } catch (InterruptedException ignored) {
-                    }
-                    Platform.runLater(() -> update(false));
-                }
-            });
-            thread.start();
-        });
+        // does nothing while a solve runs, the model claims it before starting the thread
+        visualize.setOnAction(e -> model.start());
 
         Button customize = new Button("Customize Sudoku board");
         customize.setFont(new Font(20));
         customize.setOnAction(e -> customizeBoard());
 
-        vb1.getChildren().addAll(visualize, customize);
+        ComboBox<Engine> engineBox = new ComboBox<>();
+        engineBox.getItems().addAll(Engine.values());
+        engineBox.setValue(Engine.BACKTRACKING);
+        engineBox.setOnAction(e -> model.setEngine(engineBox.getValue()));
+
+        CheckBox maxSpeed = new CheckBox("Max speed");
+        maxSpeed.setFont(new Font(20));
+        maxSpeed.setOnAction(e -> {
+            // at max speed only the answer matters, so known puzzles are answered from the cache
+            model.setMaxSpeed(maxSpeed.isSelected());
+            model.setCache(maxSpeed.isSelected() ? cache : null);
+        });
+
+        Button grade = new Button("Grade difficulty");
+        grade.setFont(new Font(20));
+        grade.setOnAction(e -> {
+            if (model.isSolving()) {
+                return;
+            }
+            // grades off the FX thread, on a copy as a load may replace the board meanwhile
+            char[][] board = model.getBoard();
+            char[][] puzzle = new char[board.length][];
+            for (int row = 0; row < puzzle.length; row++) {
+                puzzle[row] = board[row].clone();
+            }
+            grade.setDisable(true);
+            setStatus("Grading...");
+            CompletableFuture.supplyAsync(() -> grader.grade(puzzle)).whenComplete((difficulty, thrown) -> Platform.runLater(() -> {
+                if (thrown != null) {
+                    Throwable cause = thrown.getCause() != null ? thrown.getCause() : thrown;
+                    errorPopUp("Could not grade the puzzle: " + cause.getMessage());
+                } else {
+                    setStatus("Difficulty: " + difficulty);
+                }
+                grade.setDisable(false);
+            }));
+        });
+
+        vb1.getChildren().addAll(visualize, customize, grade, engineBox, maxSpeed);
 
         leftPanel.setCenter(vb1);
 
@@ -723,27 +674,48 @@ public class SudokuVisualize extends Application {
         stage.getIcons().add(logo);
         stage.setTitle("SudokuSolver 3000");
         stage.setOnCloseRequest(e -> {
-            solving = false;
+            renderer.stop();
+            model.cancel();
             customizeWindow.close();
         });
         stage.show();
+        renderer.start();
     }
 
     /**
      * Updates the board with new values from the model.
-     *
-     * @param solved the solved
+     * Only the cells that changed are drawn again.
      */
-    public void update(boolean solved) {
-        int i = 0;
-        for (int row = 0; row < SudokuConfig.DIM; row++) {
-            for (int col = 0; col < SudokuConfig.DIM; col++) {
-                ImageView cell = cellList.get(i);
-                setCellGraphic(cell, row, col);
-                i++;
-            }
+    public void update() {
+        sample();
+        canvas.paint();
+    }
+
+    /**
+     * Copies the board the model publishes into the canvas.
+     */
+    private void sample() {
+        BoardSnapshot snapshot = model.getSnapshot();
+        while (!snapshot.read(sampled)) {
+            int dim = snapshot.getDim();
+            sampled = new char[dim][dim];
+        }
+        canvas.setBoard(sampled);
+    }
+
+    /**
+     * Draws a frame from the changes the model published since the last one.
+     * A cell changing several times is only drawn with its latest value,
+     * and the whole board is compared when the model asks for it or only
+     * publishes whole boards.
+     */
+    private void render() {
+        if (model.isLive()) {
+            sample();
+        } else if (model.getEvents().drain(canvas::set)) {
+            sample();
         }
-        this.solving = !solved;
+        canvas.paint();
     }
 
     /**